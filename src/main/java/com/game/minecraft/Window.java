@@ -21,6 +21,9 @@ public class Window {
   private float lastFrameTime;
   private float deltaTime; // time since last frame
 
+  private static final boolean PRINT_RENDER_STATS = Boolean.getBoolean("minecraft.renderStats");
+  private float lastStatsTime;
+
   public Window(int width, int height, String title) {
     this.width = width;
     this.height = height;
@@ -83,6 +86,10 @@ public class Window {
       Keyboard.handleKeyboardInput(windowHandle, deltaTime);
 
       renderer.render(camera, width, height);
+      if (PRINT_RENDER_STATS && currentFrame - lastStatsTime >= 1f) {
+        lastStatsTime = currentFrame;
+        System.out.println(renderer.getStats());
+      }
 
       // front buffer = displaying, back buffer = being rendered
       glfwSwapBuffers(windowHandle);
@@ -6,9 +6,11 @@ import org.joml.Vector3f;
 
 public class Camera {
 
-  private Vector3f position;
-  private Vector3f front; // where camera is looking at
-  private Vector3f up; // direction vector of what is "up"
+  private final Vector3f position;
+  private final Vector3f front; // where camera is looking at
+  private final Vector3f up; // direction vector of what is "up"
+  // strafing scratch, so moving allocates nothing
+  private final Vector3f right = new Vector3f();
 
   // Euler angles
   private float yaw; // look left right
@@ -32,17 +34,17 @@ public class Camera {
 
     switch (direction) {
       case FORWARD:
-        position.add(new Vector3f(front).mul(velocity));
+        position.fma(velocity, front);
         break;
       case BACKWARD:
-        position.sub(new Vector3f(front).mul(velocity));
+        position.fma(-velocity, front);
         break;
         // Strafing: cross product of front and up gives vector pointing to right of camera view
       case LEFT:
-        position.sub(new Vector3f(front).cross(up).normalize().mul(velocity));
+        position.fma(-velocity, front.cross(up, right).normalize());
         break;
       case RIGHT:
-        position.add(new Vector3f(front).cross(up).normalize().mul(velocity));
+        position.fma(velocity, front.cross(up, right).normalize());
         break;
       default:
         // TODO: error handle
@@ -65,7 +67,21 @@ public class Camera {
   }
 
   public Matrix4f getViewMatrix() {
-    return new Matrix4f().lookAt(position, new Vector3f(position).add(front), up);
+    return getViewMatrix(new Matrix4f());
+  }
+
+  /** Sets dest to the view matrix and returns it. */
+  public Matrix4f getViewMatrix(Matrix4f dest) {
+    return dest.setLookAt(
+        position.x,
+        position.y,
+        position.z,
+        position.x + front.x,
+        position.y + front.y,
+        position.z + front.z,
+        up.x,
+        up.y,
+        up.z);
   }
 
   public Vector3f getPosition() {
@@ -77,10 +93,9 @@ public class Camera {
   }
 
   private void updateCameraVectors() {
-    Vector3f newFront = new Vector3f();
-    newFront.x = (float) (Math.cos(Math.toRadians(yaw)) * Math.cos(Math.toRadians(pitch)));
-    newFront.y = (float) Math.sin(Math.toRadians(pitch));
-    newFront.z = (float) (Math.sin(Math.toRadians(yaw)) * Math.cos(Math.toRadians(pitch)));
-    front = newFront.normalize();
+    front.x = (float) (Math.cos(Math.toRadians(yaw)) * Math.cos(Math.toRadians(pitch)));
+    front.y = (float) Math.sin(Math.toRadians(pitch));
+    front.z = (float) (Math.sin(Math.toRadians(yaw)) * Math.cos(Math.toRadians(pitch)));
+    front.normalize();
   }
 }
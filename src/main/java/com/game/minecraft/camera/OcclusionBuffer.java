@@ -0,0 +1,394 @@
+package com.game.minecraft.camera;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector4f;
+
+/**
+ * Low-resolution software depth buffer for occlusion culling. Each frame: begin() with the view,
+ * add occluder boxes (solid all through), rasterize() them and then test bounding boxes with
+ * isVisible(). A box is hidden when every pixel of its screen rectangle holds an occluder nearer
+ * than the box's nearest point. Both sides err towards visible: occluders only cover pixels whose
+ * centers they contain, and boxes reaching behind the near plane always pass.
+ *
+ * <p>Only the faces of an occluder that look towards the camera are rasterized. The screen is split
+ * into horizontal bands, one per thread, each taking the nearest depth of every face within its
+ * rows, so the result is the same whatever the scheduling. With a single band the calling thread
+ * rasterizes alone and there is no handoff at all. Nothing is allocated once the face array has
+ * grown to the busiest frame, and no GL context is needed, so it runs headless. One caller thread
+ * at a time; shutdown() stops the helper threads.
+ */
+public final class OcclusionBuffer {
+
+  // a face clipped by the near plane has up to 5 vertices
+  private static final int MAX_VERTICES = 5;
+  // floats per screen-space face: vertex count, bounds (min x, max x, min y, max y), depth plane
+  // (dz/dx, dz/dy, z at 0, 0), then a, b, c of the edge function per edge
+  private static final int EDGES = 8;
+  private static final int FACE = EDGES + 3 * MAX_VERTICES;
+  // in pixels
+  private static final float EDGE_EPSILON = 1e-3f;
+
+  private final int width;
+  private final int height;
+  // depth in [0, 1] per pixel, row 0 at the top; 1 is the far plane
+  private final float[] depth;
+
+  private final Matrix4f projectionView = new Matrix4f();
+  private float eyeX, eyeY, eyeZ;
+
+  private float[] faces = new float[FACE * 512];
+  private int faceCount;
+
+  // scratch: clip-space x, y, z, w of a face's corners before and after near-plane clipping
+  private final float[] face = new float[4 * 4];
+  private final float[] clipped = new float[MAX_VERTICES * 4];
+  private final Vector4f corner = new Vector4f();
+
+  private final int bands;
+  private final Thread[] helpers;
+  private final AtomicInteger pendingBands = new AtomicInteger();
+  private volatile int generation;
+  private volatile boolean stopped;
+  private volatile Thread caller;
+
+  /** A buffer of width by height pixels, rasterized in one band per available core. */
+  public OcclusionBuffer(int width, int height) {
+    this(width, height, Math.min(height, Runtime.getRuntime().availableProcessors()));
+  }
+
+  /** A buffer of width by height pixels, rasterized by the calling thread and threads - 1 more. */
+  public OcclusionBuffer(int width, int height, int threads) {
+    if (width <= 0 || height <= 0 || threads <= 0 || threads > height) {
+      throw new IllegalArgumentException(
+          "Bad occlusion buffer size " + width + "x" + height + " for " + threads + " threads");
+    }
+    this.width = width;
+    this.height = height;
+    depth = new float[width * height];
+    bands = threads;
+
+    helpers = new Thread[threads - 1];
+    for (int i = 0; i < helpers.length; i++) {
+      int band = i + 1;
+      Thread helper = new Thread(() -> helperLoop(band), "OcclusionRaster-" + band);
+      helper.setDaemon(true);
+      helpers[i] = helper;
+      helper.start();
+    }
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /** Starts a frame seen through projectionView from the eye position; drops the old occluders. */
+  public void begin(Matrix4fc projectionView, float eyeX, float eyeY, float eyeZ) {
+    this.projectionView.set(projectionView);
+    this.eyeX = eyeX;
+    this.eyeY = eyeY;
+    this.eyeZ = eyeZ;
+    faceCount = 0;
+  }
+
+  /** Adds a box that is solid all through, for the next rasterize(). */
+  public void addOccluder(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+    if (eyeX < minX) addFaceX(minX, minY, minZ, maxY, maxZ);
+    if (eyeX > maxX) addFaceX(maxX, minY, minZ, maxY, maxZ);
+    if (eyeY < minY) addFaceY(minY, minX, minZ, maxX, maxZ);
+    if (eyeY > maxY) addFaceY(maxY, minX, minZ, maxX, maxZ);
+    if (eyeZ < minZ) addFaceZ(minZ, minX, minY, maxX, maxY);
+    if (eyeZ > maxZ) addFaceZ(maxZ, minX, minY, maxX, maxY);
+  }
+
+  private void addFaceX(float x, float minY, float minZ, float maxY, float maxZ) {
+    setCorner(0, x, minY, minZ);
+    setCorner(1, x, maxY, minZ);
+    setCorner(2, x, maxY, maxZ);
+    setCorner(3, x, minY, maxZ);
+    addFace();
+  }
+
+  private void addFaceY(float y, float minX, float minZ, float maxX, float maxZ) {
+    setCorner(0, minX, y, minZ);
+    setCorner(1, maxX, y, minZ);
+    setCorner(2, maxX, y, maxZ);
+    setCorner(3, minX, y, maxZ);
+    addFace();
+  }
+
+  private void addFaceZ(float z, float minX, float minY, float maxX, float maxY) {
+    setCorner(0, minX, minY, z);
+    setCorner(1, maxX, minY, z);
+    setCorner(2, maxX, maxY, z);
+    setCorner(3, minX, maxY, z);
+    addFace();
+  }
+
+  private void setCorner(int i, float x, float y, float z) {
+    projectionView.transform(x, y, z, 1, corner);
+    face[i * 4] = corner.x;
+    face[i * 4 + 1] = corner.y;
+    face[i * 4 + 2] = corner.z;
+    face[i * 4 + 3] = corner.w;
+  }
+
+  /**
+   * Clips the quad in face against the near plane and adds what is left as one polygon, so no seam
+   * runs across it.
+   */
+  private void addFace() {
+    int count = 0;
+    for (int i = 0; i < 4; i++) {
+      int a = i * 4;
+      int b = (i + 1) % 4 * 4;
+      // signed distance to the near plane, z = -w in clip space
+      float da = face[a + 2] + face[a + 3];
+      float db = face[b + 2] + face[b + 3];
+      if (da >= 0) {
+        System.arraycopy(face, a, clipped, count++ * 4, 4);
+      }
+      if ((da >= 0) != (db >= 0)) {
+        float t = da / (da - db);
+        for (int c = 0; c < 4; c++) {
+          clipped[count * 4 + c] = face[a + c] + (face[b + c] - face[a + c]) * t;
+        }
+        count++;
+      }
+    }
+    if (count >= 3) addPolygon(count);
+  }
+
+  /**
+   * Adds the clipped face, count vertices in clip space, as a screen-space polygon with its depth
+   * plane and edge functions.
+   */
+  private void addPolygon(int count) {
+    for (int i = 0; i < count; i++) {
+      int v = i * 4;
+      float w = clipped[v + 3];
+      clipped[v] = (clipped[v] / w * 0.5f + 0.5f) * width;
+      clipped[v + 1] = (0.5f - clipped[v + 1] / w * 0.5f) * height;
+      clipped[v + 2] = clipped[v + 2] / w * 0.5f + 0.5f;
+    }
+
+    // twice the signed area, and the fan triangle with the largest area for the depth plane
+    float area = 0;
+    float bestArea = 0;
+    int best = 1;
+    for (int i = 1; i + 1 < count; i++) {
+      float triangleArea = cross(0, i, i + 1);
+      area += triangleArea;
+      if (Math.abs(triangleArea) > Math.abs(bestArea)) {
+        bestArea = triangleArea;
+        best = i;
+      }
+    }
+    if (Math.abs(area) < 1e-6f) return;
+    // edge functions w = a * x + b * y + c, scaled so that inside is positive whatever the winding
+    float sign = area > 0 ? 1 : -1;
+
+    if ((faceCount + 1) * FACE > faces.length) {
+      float[] grown = new float[faces.length * 2];
+      System.arraycopy(faces, 0, grown, 0, faceCount * FACE);
+      faces = grown;
+    }
+    int offset = faceCount++ * FACE;
+    faces[offset] = count;
+    float minX = Float.POSITIVE_INFINITY, maxX = Float.NEGATIVE_INFINITY;
+    float minY = Float.POSITIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++) {
+      int p = i * 4;
+      int q = (i + 1) % count * 4;
+      float a = sign * (clipped[p + 1] - clipped[q + 1]);
+      float b = sign * (clipped[q] - clipped[p]);
+      int edge = offset + EDGES + i * 3;
+      faces[edge] = a;
+      faces[edge + 1] = b;
+      faces[edge + 2] = -(a * clipped[p] + b * clipped[p + 1]);
+      minX = Math.min(minX, clipped[p]);
+      maxX = Math.max(maxX, clipped[p]);
+      minY = Math.min(minY, clipped[p + 1]);
+      maxY = Math.max(maxY, clipped[p + 1]);
+    }
+    faces[offset + 1] = minX;
+    faces[offset + 2] = maxX;
+    faces[offset + 3] = minY;
+    faces[offset + 4] = maxY;
+
+    // depth is affine in screen space, the face being flat: z = dzdx * x + dzdy * y + z at (0, 0)
+    int v0 = 0, v1 = best * 4, v2 = (best + 1) * 4;
+    float x0 = clipped[v0], y0 = clipped[v0 + 1], z0 = clipped[v0 + 2];
+    float x1 = clipped[v1], y1 = clipped[v1 + 1], z1 = clipped[v1 + 2];
+    float x2 = clipped[v2], y2 = clipped[v2 + 1], z2 = clipped[v2 + 2];
+    float a0 = y1 - y2, b0 = x2 - x1, c0 = x1 * y2 - x2 * y1;
+    float a1 = y2 - y0, b1 = x0 - x2, c1 = x2 * y0 - x0 * y2;
+    float a2 = y0 - y1, b2 = x1 - x0, c2 = x0 * y1 - x1 * y0;
+    float inverseArea = 1 / bestArea;
+    faces[offset + 5] = (a0 * z0 + a1 * z1 + a2 * z2) * inverseArea;
+    faces[offset + 6] = (b0 * z0 + b1 * z1 + b2 * z2) * inverseArea;
+    faces[offset + 7] = (c0 * z0 + c1 * z1 + c2 * z2) * inverseArea;
+  }
+
+  // twice the signed area of the screen-space triangle of clipped vertices a, b and c
+  private float cross(int a, int b, int c) {
+    float ax = clipped[a * 4], ay = clipped[a * 4 + 1];
+    return (clipped[b * 4] - ax) * (clipped[c * 4 + 1] - ay)
+        - (clipped[b * 4 + 1] - ay) * (clipped[c * 4] - ax);
+  }
+
+  /** Clears the buffer and rasterizes the occluders added since begin(). */
+  public void rasterize() {
+    if (helpers.length == 0) {
+      rasterizeBand(0);
+      return;
+    }
+    caller = Thread.currentThread();
+    pendingBands.set(helpers.length);
+    generation++; // publishes the triangles to the helpers
+    for (Thread helper : helpers) {
+      LockSupport.unpark(helper);
+    }
+    rasterizeBand(0);
+    while (pendingBands.get() != 0) {
+      LockSupport.park(this);
+    }
+  }
+
+  private void helperLoop(int band) {
+    int seen = 0;
+    while (true) {
+      int current;
+      while ((current = generation) == seen && !stopped) {
+        LockSupport.park(this);
+      }
+      if (stopped) return;
+      seen = current;
+      rasterizeBand(band);
+      if (pendingBands.decrementAndGet() == 0) {
+        LockSupport.unpark(caller);
+      }
+    }
+  }
+
+  private void rasterizeBand(int band) {
+    int fromRow = band * height / bands;
+    int toRow = (band + 1) * height / bands;
+    for (int i = fromRow * width; i < toRow * width; i++) {
+      depth[i] = 1;
+    }
+    for (int f = 0; f < faceCount; f++) {
+      rasterizeFace(f * FACE, fromRow, toRow);
+    }
+  }
+
+  private void rasterizeFace(int offset, int fromRow, int toRow) {
+    float[] face = faces;
+    int minX = Math.max(0, (int) Math.floor(face[offset + 1]));
+    int maxX = Math.min(width - 1, (int) Math.ceil(face[offset + 2]));
+    int minY = Math.max(fromRow, (int) Math.floor(face[offset + 3]));
+    int maxY = Math.min(toRow - 1, (int) Math.ceil(face[offset + 4]));
+    if (minX > maxX || minY > maxY) return;
+
+    float dzdx = face[offset + 5];
+    float dzdy = face[offset + 6];
+    float zOrigin = face[offset + 7];
+    int edgesEnd = offset + EDGES + (int) face[offset] * 3;
+
+    rows:
+    for (int py = minY; py <= maxY; py++) {
+      float cy = py + 0.5f;
+      // pixel centers x + 0.5 inside every edge, solved per row
+      float from = minX + 0.5f;
+      float to = maxX + 0.5f;
+      for (int edge = offset + EDGES; edge < edgesEnd; edge += 3) {
+        float a = face[edge];
+        float w = face[edge + 1] * cy + face[edge + 2];
+        if (a > 0) from = Math.max(from, -w / a);
+        else if (a < 0) to = Math.min(to, -w / a);
+        else if (w < 0) continue rows;
+      }
+
+      // stay off pixels whose centers lie on the outline to within rounding
+      int fromX = (int) Math.ceil(from - 0.5f + EDGE_EPSILON);
+      int toX = (int) Math.floor(to - 0.5f - EDGE_EPSILON);
+      if (fromX > toX) continue;
+
+      int row = py * width;
+      float rowZ = dzdy * cy + zOrigin + dzdx * 0.5f;
+      for (int px = fromX; px <= toX; px++) {
+        float z = dzdx * px + rowZ;
+        if (z < depth[row + px]) depth[row + px] = z;
+      }
+    }
+  }
+
+  /** False when the rasterized occluders hide the whole box. */
+  public boolean isVisible(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+    float left = Float.POSITIVE_INFINITY, right = Float.NEGATIVE_INFINITY;
+    float top = Float.POSITIVE_INFINITY, bottom = Float.NEGATIVE_INFINITY;
+    float nearest = Float.POSITIVE_INFINITY;
+    for (int i = 0; i < 8; i++) {
+      projectionView.transform(
+          (i & 1) == 0 ? minX : maxX,
+          (i & 2) == 0 ? minY : maxY,
+          (i & 4) == 0 ? minZ : maxZ,
+          1,
+          corner);
+      if (corner.z + corner.w < 0) return true; // behind the near plane
+      float x = (corner.x / corner.w * 0.5f + 0.5f) * width;
+      float y = (0.5f - corner.y / corner.w * 0.5f) * height;
+      left = Math.min(left, x);
+      right = Math.max(right, x);
+      top = Math.min(top, y);
+      bottom = Math.max(bottom, y);
+      nearest = Math.min(nearest, corner.z / corner.w * 0.5f + 0.5f);
+    }
+
+    int fromX = Math.max(0, (int) Math.floor(left));
+    int toX = Math.min(width - 1, (int) Math.floor(right));
+    int fromY = Math.max(0, (int) Math.floor(top));
+    int toY = Math.min(height - 1, (int) Math.floor(bottom));
+    if (fromX > toX || fromY > toY) return true; // off screen; left to frustum culling
+
+    for (int y = fromY; y <= toY; y++) {
+      int row = y * width;
+      for (int x = fromX; x <= toX; x++) {
+        if (depth[row + x] >= nearest) return true;
+      }
+    }
+    return false;
+  }
+
+  /** Depth of a pixel, row 0 at the top, as of the last rasterize(). */
+  public float getDepth(int x, int y) {
+    return depth[y * width + x];
+  }
+
+  /** Number of faces the occluders added since begin() came to. */
+  public int getFaceCount() {
+    return faceCount;
+  }
+
+  /** Hash of the whole depth buffer, for checking that runs give the same result. */
+  public long depthHash() {
+    long hash = 1;
+    for (float d : depth) {
+      hash = (hash ^ Float.floatToIntBits(d)) * 0x9E3779B97F4A7C15L;
+    }
+    return hash;
+  }
+
+  public void shutdown() {
+    stopped = true;
+    for (Thread helper : helpers) {
+      LockSupport.unpark(helper);
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.game.minecraft.camera;
+
+/**
+ * Culling counts of the last frame the Renderer drew. A mesh is one render pass (opaque or water)
+ * of a chunk; each non-empty section drawn is one range of its pass's multi-draw call. Print them
+ * once a second with -Dminecraft.renderStats=true.
+ */
+public class RenderStats {
+
+  private int drawCalls;
+  private int meshesDrawn;
+  private int meshesCulled;
+  private int meshesOccluded;
+  private int sectionsDrawn;
+  private int sectionsCulled;
+  private int sectionsOccluded;
+
+  void reset() {
+    drawCalls =
+        meshesDrawn =
+            meshesCulled = meshesOccluded = sectionsDrawn = sectionsCulled = sectionsOccluded = 0;
+  }
+
+  void passDrawn(int ranges) {
+    if (ranges > 0) drawCalls++;
+  }
+
+  void meshDrawn(int drawnSections, int culledSections, int occludedSections) {
+    meshesDrawn++;
+    sectionsDrawn += drawnSections;
+    sectionsCulled += culledSections;
+    sectionsOccluded += occludedSections;
+  }
+
+  void meshCulled(int culledSections, int occludedSections) {
+    meshesCulled++;
+    sectionsCulled += culledSections;
+    sectionsOccluded += occludedSections;
+  }
+
+  void meshOccluded(int culledSections, int occludedSections) {
+    meshesOccluded++;
+    sectionsCulled += culledSections;
+    sectionsOccluded += occludedSections;
+  }
+
+  /** Draw calls issued; one per render pass with anything to draw. */
+  public int getDrawCalls() {
+    return drawCalls;
+  }
+
+  /** Meshes with at least one section drawn. */
+  public int getMeshesDrawn() {
+    return meshesDrawn;
+  }
+
+  public int getMeshesCulled() {
+    return meshesCulled;
+  }
+
+  /** Meshes in the view frustum hidden behind nearer terrain (see OcclusionBuffer). */
+  public int getMeshesOccluded() {
+    return meshesOccluded;
+  }
+
+  public int getSectionsDrawn() {
+    return sectionsDrawn;
+  }
+
+  /** Sections outside the view frustum. */
+  public int getSectionsCulled() {
+    return sectionsCulled;
+  }
+
+  /**
+   * Sections in the view frustum that no opening leads to from the camera, or that belong to an
+   * occluded mesh.
+   */
+  public int getSectionsOccluded() {
+    return sectionsOccluded;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "draw calls %d; meshes drawn %d, culled %d, occluded %d; sections drawn %d, culled %d,"
+            + " occluded %d",
+        drawCalls,
+        meshesDrawn,
+        meshesCulled,
+        meshesOccluded,
+        sectionsDrawn,
+        sectionsCulled,
+        sectionsOccluded);
+  }
+}
@@ -6,10 +6,18 @@ import static org.lwjgl.system.MemoryStack.stackPush;
 import com.game.minecraft.utils.FileReader;
 import com.game.minecraft.world.World;
 import com.game.minecraft.world.chunks.Chunk;
+import com.game.minecraft.world.chunks.ChunkArena;
+import com.game.minecraft.world.chunks.ChunkCoordinate;
+import com.game.minecraft.world.chunks.ChunkMesh;
+import com.game.minecraft.world.chunks.ChunkMesher;
+import com.game.minecraft.world.chunks.OccluderSpans;
+import com.game.minecraft.world.chunks.SectionVisibility;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import org.joml.FrustumIntersection;
 import org.joml.Matrix4f;
+import org.joml.Vector3f;
 import org.lwjgl.stb.STBImage;
 import org.lwjgl.system.MemoryStack;
 
@@ -17,7 +25,9 @@ public class Renderer {
 
   private final String VERTEX_SHADER_SRC = FileReader.loadFromResource("shaders/vertex.glsl");
   private final String FRAGMENT_SHADER_SRC = FileReader.loadFromResource("shaders/fragment.glsl");
-  private final int MAX_BUILD_PER_FRAME = 2;
+  private final int MAX_UPLOAD_PER_FRAME = 8;
+  // in chunk rings; distant rings are meshed at a lower level of detail, see World
+  private final int RENDER_DISTANCE = Integer.getInteger("minecraft.renderDistance", 3);
 
   private int shaderProgram;
   private int atlasTextureId;
@@ -25,19 +35,67 @@ public class Renderer {
   private int uIsWater;
 
   private World world;
+  private ChunkMesher chunkMesher;
 
   private float FOV = 70f;
   private float ZNEAR = 0.1f;
   private float zFar = 1000f;
 
+  // skip sections no opening leads to from the camera; -Dminecraft.caveCulling=false draws them
+  private final boolean CAVE_CULLING =
+      Boolean.parseBoolean(System.getProperty("minecraft.caveCulling", "true"));
+
+  // skip chunks hidden behind nearer terrain; -Dminecraft.occlusionCulling=false draws them
+  private final boolean OCCLUSION_CULLING =
+      Boolean.parseBoolean(System.getProperty("minecraft.occlusionCulling", "true"));
+  // in chunk rings around the camera; nearer terrain hides the most
+  private final int OCCLUDER_DISTANCE = 3;
+
+  private final RenderStats stats = new RenderStats();
+  private final SectionVisibility sectionVisibility = new SectionVisibility();
+  // SectionVisibility walk of this frame, or 0 when every section counts as reachable
+  private int visibilityWalk;
+  // the camera's chunk, kept while the camera stays in it
+  private ChunkCoordinate cameraChunk;
+  private OcclusionBuffer occlusionBuffer;
+
+  // per-frame matrices, so a frame allocates nothing
+  private final Matrix4f projection = new Matrix4f();
+  private final Matrix4f view = new Matrix4f();
+  private final Matrix4f projectionView = new Matrix4f();
+
+  // culling scratch
+  private final FrustumIntersection frustum = new FrustumIntersection();
+  private final Vector3f sectionMin = new Vector3f();
+  private final Vector3f sectionMax = new Vector3f();
+
+  public Renderer() {}
+
+  /**
+   * A renderer of the world that is never init()ed, so has no GL, for the CPU part of a frame:
+   * cullFrame() and queuePass(). The occlusion buffer may be null.
+   */
+  Renderer(World world, OcclusionBuffer occlusionBuffer) {
+    this.world = world;
+    this.occlusionBuffer = occlusionBuffer;
+  }
+
   public void init() {
     shaderProgram = createShaderProgram(VERTEX_SHADER_SRC, FRAGMENT_SHADER_SRC);
     uMVP = glGetUniformLocation(shaderProgram, "uMVP");
     uIsWater = glGetUniformLocation(shaderProgram, "uIsWater");
+    glUseProgram(shaderProgram);
+    glUniform1i(
+        glGetUniformLocation(shaderProgram, "uChunkOffsets"), ChunkArena.OFFSETS_TEXTURE_UNIT);
+    glUseProgram(0);
     atlasTextureId = loadFullAtlas("assets/atlas.png");
 
     world = new World();
-    setRenderDistance(3);
+    chunkMesher = new ChunkMesher();
+    setRenderDistance(RENDER_DISTANCE);
+    if (OCCLUSION_CULLING) {
+      occlusionBuffer = new OcclusionBuffer(256, 128);
+    }
 
     glEnable(GL_DEPTH_TEST); // add 3d layers to models
   }
@@ -48,44 +106,27 @@ public class Renderer {
     glUseProgram(shaderProgram);
     glBindTexture(GL_TEXTURE_2D, atlasTextureId);
 
-    Matrix4f projection =
-        new Matrix4f()
-            .perspective(
-                (float) Math.toRadians(FOV), // fov
-                (float) width / height, // aspect ratio
-                ZNEAR, // clipping
-                zFar); // render distance
-
-    Matrix4f view = camera.getViewMatrix(); // cameras position & orient
+    world.updatePlayerPosition(camera.getPosition().x, camera.getPosition().z);
 
-    Matrix4f projectionView = projection.mul(view, new Matrix4f());
+    // meshes are built by the workers; only finished ones are uploaded here
+    chunkMesher.uploadFinished(MAX_UPLOAD_PER_FRAME);
+    cullFrame(camera, width, height);
 
-    world.updatePlayerPosition(camera.getPosition().x, camera.getPosition().z);
+    // vertices carry their chunk's position (see ChunkArena), so one matrix serves every chunk
+    setMVPUniform(projectionView);
 
-    // render solid/opaques
-    int buildsThisFrame = 0;
-    for (Chunk chunk : world.getActiveChunks()) {
-      if (chunk.isDirty() && buildsThisFrame < MAX_BUILD_PER_FRAME) {
-        chunk.buildMesh();
-        buildsThisFrame++;
-      }
-      renderObject(
-          projectionView,
-          chunk.getModelMatrix4f(),
-          chunk.getOpaqueVaoId(),
-          chunk.getOpaqueVertexCount());
+    // render solid/opaques, each pass in one multi-draw
+    for (int i = 0; i < world.getActiveChunkCount(); i++) {
+      chunkMesher.schedule(world.getActiveChunk(i));
     }
+    queuePass(false);
+    stats.passDrawn(ChunkArena.drawQueued());
     // render water
     glEnable(GL_BLEND);
     glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
     glUniform1i(uIsWater, 1);
-    for (Chunk chunk : world.getActiveChunks()) {
-      renderObject(
-          projectionView,
-          chunk.getModelMatrix4f(),
-          chunk.getWaterVaoId(),
-          chunk.getWaterVertexCount());
-    }
+    queuePass(true);
+    stats.passDrawn(ChunkArena.drawQueued());
     glUniform1i(uIsWater, 0);
     glDisable(GL_BLEND);
 
@@ -93,12 +134,153 @@ public class Renderer {
     glUseProgram(0);
   }
 
-  private void renderObject(
-      Matrix4f projectionView, Matrix4f modelMatrix, int vaoId, int vertexCount) {
-    Matrix4f mvp = projectionView.mul(modelMatrix, new Matrix4f());
-    setMVPUniform(mvp);
-    glBindVertexArray(vaoId);
-    glDrawArrays(GL_TRIANGLES, 0, vertexCount);
+  /**
+   * Sets up the matrices for a width by height view through the camera, resets the stats, walks the
+   * sections reachable from the camera and rasterizes the occluders, for queuePass(). No GL.
+   */
+  void cullFrame(Camera camera, int width, int height) {
+    projection.setPerspective(
+        (float) Math.toRadians(FOV), // fov
+        (float) width / height, // aspect ratio
+        ZNEAR, // clipping
+        zFar); // render distance
+
+    camera.getViewMatrix(view); // cameras position & orient
+
+    projection.mul(view, projectionView);
+    frustum.set(projectionView);
+    stats.reset();
+
+    walkVisibleSections(camera);
+    rasterizeOccluders(projectionView, camera);
+  }
+
+  /**
+   * Queues the sections left after culling of every active chunk's water or opaque mesh for
+   * ChunkArena.drawQueued(). No GL.
+   */
+  void queuePass(boolean water) {
+    for (int i = 0; i < world.getActiveChunkCount(); i++) {
+      Chunk chunk = world.getActiveChunk(i);
+      renderObject(chunk, water ? chunk.getWaterMesh() : chunk.getOpaqueMesh());
+    }
+  }
+
+  private void renderObject(Chunk chunk, ChunkMesh mesh) {
+    if (mesh.getVertexCount() == 0) return;
+    int nonEmpty = mesh.getSectionMask();
+    int inFrustum = visibleSections(chunk, mesh);
+    int sections =
+        visibilityWalk == 0 ? inFrustum : inFrustum & chunk.getVisitedSections(visibilityWalk);
+    int culled = Integer.bitCount(nonEmpty & ~inFrustum);
+    if (sections != 0 && occlusionBuffer != null && isOccluded(chunk, mesh)) {
+      stats.meshOccluded(culled, Integer.bitCount(inFrustum));
+      return;
+    }
+    int occluded = Integer.bitCount(inFrustum & ~sections);
+    if (sections == 0) {
+      stats.meshCulled(culled, occluded);
+      return;
+    }
+    stats.meshDrawn(Integer.bitCount(sections), culled, occluded);
+    mesh.draw(sections);
+  }
+
+  private void walkVisibleSections(Camera camera) {
+    visibilityWalk = 0;
+    if (!CAVE_CULLING) return;
+
+    Vector3f position = camera.getPosition();
+    // blocks are centered on whole coordinates
+    int chunkX = Math.floorDiv((int) Math.floor(position.x + 0.5f), Chunk.CHUNK_X);
+    int chunkZ = Math.floorDiv((int) Math.floor(position.z + 0.5f), Chunk.CHUNK_Z);
+    if (cameraChunk == null || cameraChunk.x() != chunkX || cameraChunk.z() != chunkZ) {
+      cameraChunk = new ChunkCoordinate(chunkX, chunkZ);
+    }
+    Chunk start = world.getChunk(cameraChunk);
+    if (start != null) {
+      visibilityWalk = sectionVisibility.walk(start, position.x, position.y, position.z, frustum);
+    }
+  }
+
+  /** Rasterizes the occluder boxes of the chunks near the camera that are in view. */
+  private void rasterizeOccluders(Matrix4f projectionView, Camera camera) {
+    if (occlusionBuffer == null) return;
+
+    Vector3f position = camera.getPosition();
+    occlusionBuffer.begin(projectionView, position.x, position.y, position.z);
+    int cameraX = Math.floorDiv((int) Math.floor(position.x + 0.5f), Chunk.CHUNK_X);
+    int cameraZ = Math.floorDiv((int) Math.floor(position.z + 0.5f), Chunk.CHUNK_Z);
+    for (int i = 0; i < world.getActiveChunkCount(); i++) {
+      Chunk chunk = world.getActiveChunk(i);
+      int x = Math.floorDiv((int) chunk.getXCoord(), Chunk.CHUNK_X);
+      int z = Math.floorDiv((int) chunk.getZCoord(), Chunk.CHUNK_Z);
+      if (Math.max(Math.abs(x - cameraX), Math.abs(z - cameraZ)) > OCCLUDER_DISTANCE) continue;
+
+      for (int tile = 0; tile < OccluderSpans.TILES; tile++) {
+        if (OccluderSpans.getBounds(
+                chunk.getOccluderSpan(tile),
+                tile,
+                chunk.getXCoord(),
+                chunk.getYCoord(),
+                chunk.getZCoord(),
+                sectionMin,
+                sectionMax)
+            && frustum.testAab(sectionMin, sectionMax)) {
+          occlusionBuffer.addOccluder(
+              sectionMin.x, sectionMin.y, sectionMin.z, sectionMax.x, sectionMax.y, sectionMax.z);
+        }
+      }
+    }
+    occlusionBuffer.rasterize();
+  }
+
+  /** Whether the occluders hide the mesh's whole bounding box. */
+  private boolean isOccluded(Chunk chunk, ChunkMesh mesh) {
+    float x = chunk.getXCoord(), y = chunk.getYCoord(), z = chunk.getZCoord();
+    mesh.getBounds(sectionMin, sectionMax);
+    return !occlusionBuffer.isVisible(
+        x + sectionMin.x,
+        y + sectionMin.y,
+        z + sectionMin.z,
+        x + sectionMax.x,
+        y + sectionMax.y,
+        z + sectionMax.z);
+  }
+
+  /**
+   * The mesh's sections whose bounding boxes intersect the view frustum, as a bit mask. Sections
+   * are only tested one by one when the mesh's box straddles the frustum.
+   */
+  private int visibleSections(Chunk chunk, ChunkMesh mesh) {
+    float x = chunk.getXCoord(), y = chunk.getYCoord(), z = chunk.getZCoord();
+    mesh.getBounds(sectionMin, sectionMax);
+    int result =
+        frustum.intersectAab(
+            x + sectionMin.x,
+            y + sectionMin.y,
+            z + sectionMin.z,
+            x + sectionMax.x,
+            y + sectionMax.y,
+            z + sectionMax.z);
+    if (result == FrustumIntersection.INSIDE) return mesh.getSectionMask();
+    if (result != FrustumIntersection.INTERSECT) return 0;
+
+    int visible = 0;
+    for (int mask = mesh.getSectionMask(); mask != 0; mask &= mask - 1) {
+      int s = Integer.numberOfTrailingZeros(mask);
+      mesh.getSectionBounds(s, sectionMin, sectionMax);
+      if (frustum.testAab(
+          x + sectionMin.x,
+          y + sectionMin.y,
+          z + sectionMin.z,
+          x + sectionMax.x,
+          y + sectionMax.y,
+          z + sectionMax.z)) {
+        visible |= 1 << s;
+      }
+    }
+    return visible;
   }
 
   private void setMVPUniform(Matrix4f mvp) {
@@ -113,6 +295,11 @@ public class Renderer {
     }
   }
 
+  /** Culling counts of the last frame. */
+  public RenderStats getStats() {
+    return stats;
+  }
+
   public void setRenderDistance(int layerRadius) {
     world.setChunkLayerRadius(layerRadius);
     zFar = layerRadius * Chunk.CHUNK_X + Chunk.CHUNK_X;
@@ -184,6 +371,8 @@ public class Renderer {
   }
 
   public void shutdown() {
+    if (occlusionBuffer != null) occlusionBuffer.shutdown();
+    chunkMesher.shutdown();
     world.shutdown();
   }
 
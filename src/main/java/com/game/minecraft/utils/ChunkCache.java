@@ -0,0 +1,122 @@
+package com.game.minecraft.utils;
+
+import com.game.minecraft.world.chunks.ChunkCoordinate;
+import com.game.minecraft.world.chunks.ChunkData;
+import java.io.IOException;
+
+/**
+ * Two-tier cache for chunks that are not active. The hot tier holds decoded ChunkData; entries it
+ * evicts are encoded into the warm tier, and entries the warm tier evicts are written to disk
+ * through PersistStorage.saveAsync(). Both tiers are bounded by bytes, so heap use does not depend
+ * on render distance.
+ */
+public class ChunkCache {
+
+  private final LRU<ChunkData> hot;
+  private final LRU<byte[]> warm;
+
+  private long hotHits;
+  private long warmHits;
+  private long misses;
+  private long hotEvictions;
+  private long warmEvictions;
+
+  public ChunkCache(long hotBytes, long warmBytes) {
+    warm = new LRU<>(warmBytes, bytes -> 16L + bytes.length, this::spillToDisk);
+    hot = new LRU<>(hotBytes, ChunkData::estimateBytes, this::demoteToWarm);
+  }
+
+  /** Returns the cached data for the coordinate, or null if it has to come from disk/generation. */
+  public ChunkData get(ChunkCoordinate coord) {
+    ChunkData data = hot.get(coord);
+    if (data != null) {
+      hotHits++;
+      return data;
+    }
+
+    byte[] encoded = warm.take(coord);
+    if (encoded != null) {
+      try {
+        data = ChunkCodec.decode(encoded);
+        warmHits++;
+        hot.put(coord, data);
+        return data;
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+
+    misses++;
+    return null;
+  }
+
+  /**
+   * Caches data for the coordinate. The cache takes ownership: the data must not be modified
+   * afterwards, and is released once it is replaced or demoted.
+   */
+  public void put(ChunkCoordinate coord, ChunkData data) {
+    warm.take(coord);
+    ChunkData old = hot.take(coord);
+    if (old != null && old != data) {
+      old.release();
+    }
+    hot.put(coord, data);
+  }
+
+  private void demoteToWarm(ChunkCoordinate coord, ChunkData data) {
+    hotEvictions++;
+    warm.put(coord, PersistStorage.encode(data));
+    data.release();
+  }
+
+  private void spillToDisk(ChunkCoordinate coord, byte[] encoded) {
+    warmEvictions++;
+    PersistStorage.saveAsync(coord, encoded);
+  }
+
+  public long getHotHits() {
+    return hotHits;
+  }
+
+  public long getWarmHits() {
+    return warmHits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  /** Entries moved from the hot tier into the warm tier. */
+  public long getHotEvictions() {
+    return hotEvictions;
+  }
+
+  /** Entries written out to disk from the warm tier. */
+  public long getWarmEvictions() {
+    return warmEvictions;
+  }
+
+  public long getHotBytes() {
+    return hot.weight();
+  }
+
+  public long getWarmBytes() {
+    return warm.weight();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ChunkCache[hot %d chunks/%d KB, warm %d chunks/%d KB, hits %d+%d, misses %d,"
+            + " evictions %d+%d]",
+        hot.size(),
+        hot.weight() / 1024,
+        warm.size(),
+        warm.weight() / 1024,
+        hotHits,
+        warmHits,
+        misses,
+        hotEvictions,
+        warmEvictions);
+  }
+}
@@ -0,0 +1,207 @@
+package com.game.minecraft.utils;
+
+import com.game.minecraft.world.Blocks;
+import com.game.minecraft.world.chunks.BlockStorage;
+import com.game.minecraft.world.chunks.Chunk;
+import com.game.minecraft.world.chunks.ChunkData;
+import com.game.minecraft.world.chunks.ChunkSection;
+import com.game.minecraft.world.chunks.Heightmap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Versioned binary encoding of ChunkData.
+ *
+ * <p>Layout: version (u8), flags (u8), then the body, deflated when FLAG_DEFLATE is set. The body
+ * is a u16 mask of present sections followed, per present section, by its palette (u8 size, then
+ * one u8 per entry: 0 for air, ordinal + 1 otherwise) and its cells as runs of (u8 palette index,
+ * varint run length) in ChunkSection.index() order. Since version 2 the body ends with one u16 per
+ * column (x-major) for each Heightmap.Type in declaration order; version 1 data has its heightmaps
+ * rebuilt on decode.
+ */
+public class ChunkCodec {
+
+  public static final int VERSION = 2;
+  public static final int FLAG_DEFLATE = 1;
+
+  private static final Blocks[] VALUES = Blocks.values();
+  private static final Heightmap.Type[] HEIGHTMAP_TYPES = Heightmap.Type.values();
+
+  private ChunkCodec() {}
+
+  public static byte[] encode(ChunkData data, boolean compress) {
+    ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+    int mask = 0;
+    for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+      if (!data.isSectionEmpty(s)) mask |= 1 << s;
+    }
+    body.write(mask >>> 8);
+    body.write(mask);
+
+    for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+      ChunkSection section = data.getSection(s);
+      if (section == null) continue;
+
+      int paletteSize = section.getPaletteSize();
+      body.write(paletteSize);
+      for (int i = 0; i < paletteSize; i++) {
+        Blocks block = section.getPaletteEntry(i);
+        body.write(block == null ? 0 : block.ordinal() + 1);
+      }
+
+      int runIndex = section.getPaletteIndex(0);
+      int runLength = 1;
+      for (int i = 1; i < ChunkSection.VOLUME; i++) {
+        int paletteIndex = section.getPaletteIndex(i);
+        if (paletteIndex == runIndex) {
+          runLength++;
+          continue;
+        }
+        writeRun(body, runIndex, runLength);
+        runIndex = paletteIndex;
+        runLength = 1;
+      }
+      writeRun(body, runIndex, runLength);
+    }
+
+    for (Heightmap.Type type : HEIGHTMAP_TYPES) {
+      for (int x = 0; x < Chunk.CHUNK_X; x++) {
+        for (int z = 0; z < Chunk.CHUNK_Z; z++) {
+          int height = data.getHeight(type, x, z);
+          body.write(height >>> 8);
+          body.write(height);
+        }
+      }
+    }
+
+    byte[] raw = body.toByteArray();
+    ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+    out.write(VERSION);
+    out.write(compress ? FLAG_DEFLATE : 0);
+    if (compress) {
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) {
+          int n = deflater.deflate(chunk);
+          out.write(chunk, 0, n);
+        }
+      } finally {
+        deflater.end();
+      }
+    } else {
+      out.write(raw, 0, raw.length);
+    }
+    return out.toByteArray();
+  }
+
+  public static ChunkData decode(byte[] bytes) throws IOException {
+    if (bytes.length < 2) {
+      throw new IOException("Truncated chunk data");
+    }
+    int version = bytes[0] & 0xFF;
+    if (version < 1 || version > VERSION) {
+      throw new IOException("Unsupported chunk data version " + version);
+    }
+    int flags = bytes[1] & 0xFF;
+
+    ByteBuffer body = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+    if ((flags & FLAG_DEFLATE) != 0) {
+      body = ByteBuffer.wrap(inflate(bytes, 2, bytes.length - 2));
+    }
+
+    try {
+      ChunkData data = new ChunkData();
+      int mask = body.getShort() & 0xFFFF;
+      Blocks[] palette = new Blocks[256];
+      for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+        if ((mask & (1 << s)) == 0) continue;
+
+        int paletteSize = body.get() & 0xFF;
+        for (int i = 0; i < paletteSize; i++) {
+          int id = body.get() & 0xFF;
+          palette[i] = id == 0 ? null : VALUES[id - 1];
+        }
+
+        BlockStorage storage = ChunkSection.newStorage(palette, paletteSize);
+        int cell = 0;
+        while (cell < ChunkSection.VOLUME) {
+          int paletteIndex = body.get() & 0xFF;
+          int runLength = readVarInt(body);
+          if (paletteIndex >= paletteSize || runLength <= 0) {
+            throw new IOException("Corrupt chunk data run");
+          }
+          storage.fill(
+              cell, Math.min(cell + runLength, ChunkSection.VOLUME), palette[paletteIndex]);
+          cell += runLength;
+        }
+        data.setSection(s, new ChunkSection(storage));
+      }
+
+      if (version >= 2) {
+        for (Heightmap.Type type : HEIGHTMAP_TYPES) {
+          for (int x = 0; x < Chunk.CHUNK_X; x++) {
+            for (int z = 0; z < Chunk.CHUNK_Z; z++) {
+              data.setHeight(type, x, z, body.getShort() & 0xFFFF);
+            }
+          }
+        }
+      } else {
+        data.rebuildHeightmaps();
+      }
+      return data;
+    } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+      throw new IOException("Corrupt chunk data", e);
+    }
+  }
+
+  private static void writeRun(ByteArrayOutputStream out, int paletteIndex, int runLength) {
+    out.write(paletteIndex);
+    while ((runLength & ~0x7F) != 0) {
+      out.write((runLength & 0x7F) | 0x80);
+      runLength >>>= 7;
+    }
+    out.write(runLength);
+  }
+
+  private static int readVarInt(ByteBuffer in) {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = in.get() & 0xFF;
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0 && shift < 32);
+    return value;
+  }
+
+  private static byte[] inflate(byte[] bytes, int offset, int length) throws IOException {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes, offset, length);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(length * 4);
+      byte[] chunk = new byte[4096];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(chunk);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IOException("Truncated compressed chunk data");
+        }
+        out.write(chunk, 0, n);
+      }
+      return out.toByteArray();
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt compressed chunk data", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.game.minecraft.utils;
+
+import java.nio.IntBuffer;
+import org.lwjgl.BufferUtils;
+
+/**
+ * Growable int array backed by a direct buffer, so what's built in it can be handed to GL as is.
+ * Meant to be reused: clear() keeps the storage, which only grows, and must come before adding
+ * again after range().
+ */
+public class DirectIntArray {
+  private IntBuffer data;
+  private int size;
+
+  public DirectIntArray(int initialCapacity) {
+    data = BufferUtils.createIntBuffer(initialCapacity);
+    size = 0;
+  }
+
+  public void add(int value) {
+    if (size == data.capacity()) {
+      grow();
+    }
+    data.put(size++, value);
+  }
+
+  private void grow() {
+    IntBuffer newData = BufferUtils.createIntBuffer(data.capacity() * 2);
+    newData.put(0, data, 0, size);
+    data = newData;
+  }
+
+  public int get(int index) {
+    return data.get(index);
+  }
+
+  public void set(int index, int value) {
+    data.put(index, value);
+  }
+
+  /**
+   * The elements [from, to) as the buffer's position and limit. Returns the backing buffer itself,
+   * so it is only valid until the next call.
+   */
+  public IntBuffer range(int from, int to) {
+    data.limit(to).position(from);
+    return data;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return data.capacity();
+  }
+
+  public void clear() {
+    data.clear();
+    size = 0;
+  }
+}
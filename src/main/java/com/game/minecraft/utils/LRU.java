@@ -1,39 +1,51 @@
 package com.game.minecraft.utils;
 
-import com.game.minecraft.world.Blocks;
 import com.game.minecraft.world.chunks.ChunkCoordinate;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
 
-public class LRU {
+/**
+ * Least-recently-used map keyed by chunk coordinate and bounded by total weight (e.g. bytes) rather
+ * than entry count. Evicted entries are handed to the eviction callback.
+ */
+public class LRU<V> {
 
   private class Node {
     private Node next, prev;
     private ChunkCoordinate key;
-    private Blocks[][][] val;
+    private V val;
+    private long weight;
 
     Node() {}
 
-    Node(ChunkCoordinate key, Blocks[][][] data) {
+    Node(ChunkCoordinate key, V data, long weight) {
       this.key = key;
       this.val = data;
+      this.weight = weight;
     }
   }
 
-  private int cap = 25 * 25;
+  private final long cap;
+  private final ToLongFunction<V> weigher;
+  private final BiConsumer<ChunkCoordinate, V> onEvict;
+  private long weight;
   private Node MRUptr = new Node();
   private Node LRUptr = new Node();
   private Map<ChunkCoordinate, Node> cache = new HashMap<>();
 
-  public LRU(int cap) {
+  public LRU(long cap, ToLongFunction<V> weigher, BiConsumer<ChunkCoordinate, V> onEvict) {
     this.cap = cap;
+    this.weigher = weigher;
+    this.onEvict = onEvict;
     MRUptr.prev = LRUptr;
     LRUptr.next = MRUptr;
   }
 
-  public Blocks[][][] get(ChunkCoordinate key) {
-    if (cache.containsKey(key)) {
-      Node node = cache.get(key);
+  public V get(ChunkCoordinate key) {
+    Node node = cache.get(key);
+    if (node != null) {
       remove(node);
       insert(node);
       return node.val;
@@ -41,22 +53,46 @@ public class LRU {
     return null;
   }
 
-  public void put(ChunkCoordinate key, Blocks[][][] val) {
-    if (cache.containsKey(key)) {
-      remove(cache.get(key));
-    }
-    cache.put(key, new Node(key, val));
-    insert(cache.get(key));
+  public void put(ChunkCoordinate key, V val) {
+    take(key);
+    Node node = new Node(key, val, weigher.applyAsLong(val));
+    cache.put(key, node);
+    insert(node);
+    weight += node.weight;
 
-    if (cache.size() > cap) {
+    while (weight > cap && LRUptr.next != MRUptr) {
       Node lru = LRUptr.next;
-      PersistStorage.saveToFile(lru.key, lru.val);
       remove(lru);
       cache.remove(lru.key);
+      weight -= lru.weight;
+      onEvict.accept(lru.key, lru.val);
     }
   }
 
-  public void remove(Node node) {
+  /** Removes and returns the entry for the key without triggering the eviction callback. */
+  public V take(ChunkCoordinate key) {
+    Node node = cache.remove(key);
+    if (node == null) {
+      return null;
+    }
+    remove(node);
+    weight -= node.weight;
+    return node.val;
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  public long weight() {
+    return weight;
+  }
+
+  public long capacity() {
+    return cap;
+  }
+
+  private void remove(Node node) {
     Node tmpPrev = node.prev;
     Node tmpNext = node.next;
     tmpPrev.next = node.next;
@@ -64,7 +100,7 @@ public class LRU {
     node.next = node.prev = null;
   }
 
-  public void insert(Node node) {
+  private void insert(Node node) {
     Node mruPrev = MRUptr.prev;
     node.next = MRUptr;
     MRUptr.prev = node;
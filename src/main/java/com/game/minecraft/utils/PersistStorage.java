@@ -1,50 +1,195 @@
 package com.game.minecraft.utils;
 
-import com.game.minecraft.world.Blocks;
 import com.game.minecraft.world.chunks.ChunkCoordinate;
+import com.game.minecraft.world.chunks.ChunkData;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Saves and loads chunk data grouped into RegionFiles, encoded with ChunkCodec. Region files stay
+ * open for the lifetime of the world, so a load is a single positioned read. saveAsync() hands an
+ * encoded chunk to a background WriteBehindQueue; loads see those saves before they reach the disk.
+ *
+ * <p>Built chunk meshes are kept the same way in a separate set of region files under MESH_DIR,
+ * with their own writer; their payload is opaque here (see MeshCache).
+ */
 public class PersistStorage {
 
-  private static String fileName = UUID.randomUUID().toString().replace("-", "");
+  private static volatile String fileName = UUID.randomUUID().toString().replace("-", "");
+  private static volatile boolean compress = true;
+
+  private static final int WRITE_BACKLOG = 128;
+  private static volatile WriteBehindQueue<byte[]> writeQueue;
+  private static Thread writerThread;
+  private static volatile WriteBehindQueue<byte[]> meshWriteQueue;
+  private static Thread meshWriterThread;
+
+  private static final String MESH_DIR = "meshes";
+
+  // keyed by region coordinate (chunk coordinate / REGION_SIZE)
+  private static final Map<ChunkCoordinate, RegionFile> regions = new ConcurrentHashMap<>();
+  private static final Map<ChunkCoordinate, RegionFile> meshRegions = new ConcurrentHashMap<>();
 
   public static void setWorldInstanceName(String name) {
+    close();
     fileName = name;
   }
 
-  public static void saveToFile(ChunkCoordinate coord, Blocks[][][] data) {
-    File dir = new File(fileName);
-    if (!dir.exists()) {
-      dir.mkdir();
+  /** Whether saved chunks are deflated on top of the run-length encoding. Loads accept both. */
+  public static void setCompression(boolean enabled) {
+    compress = enabled;
+  }
+
+  /** Queues a save of ChunkCodec-encoded data without touching the disk on the calling thread. */
+  public static void saveAsync(ChunkCoordinate coord, byte[] encoded) {
+    WriteBehindQueue<byte[]> queue;
+    synchronized (PersistStorage.class) {
+      if (writeQueue == null) {
+        writeQueue = new WriteBehindQueue<>(PersistStorage::writeEncoded, WRITE_BACKLOG);
+        writerThread = new Thread(writeQueue, "ChunkWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+      }
+      queue = writeQueue;
     }
-    File file = new File(dir, coord.x() + "_" + coord.z() + ".dat");
+    queue.enqueue(coord, encoded);
+  }
+
+  /** Encodes with the current compression setting, for saveAsync() or a cache tier. */
+  public static byte[] encode(ChunkData data) {
+    return ChunkCodec.encode(data, compress);
+  }
 
-    try (FileOutputStream fos = new FileOutputStream(file);
-        ObjectOutputStream oos = new ObjectOutputStream(fos)) {
-      oos.writeObject(data);
-    } catch (IOException e) {
+  public static void saveToFile(ChunkCoordinate coord, ChunkData data) {
+    writeEncoded(coord, encode(data));
+  }
+
+  private static void writeEncoded(ChunkCoordinate coord, byte[] encoded) {
+    try {
+      regionFor(regions, null, coord).write(coord.x(), coord.z(), encoded);
+    } catch (IOException | UncheckedIOException e) {
       e.printStackTrace();
     }
   }
 
-  public static Blocks[][][] loadFromFile(ChunkCoordinate coord) {
-    File file = new File(fileName, coord.x() + "_" + coord.z() + ".dat");
-    if (!file.exists()) {
+  public static ChunkData loadFromFile(ChunkCoordinate coord) {
+    try {
+      byte[] bytes = null;
+      WriteBehindQueue<byte[]> queue = writeQueue;
+      if (queue != null) {
+        bytes = queue.getPending(coord);
+      }
+      if (bytes == null) {
+        bytes = regionFor(regions, null, coord).read(coord.x(), coord.z());
+      }
+      if (bytes == null) {
+        return null;
+      }
+      return ChunkCodec.decode(bytes);
+    } catch (IOException | UncheckedIOException e) {
+      e.printStackTrace();
       return null;
     }
+  }
+
+  /** Queues a save of a chunk's encoded mesh, replacing the one stored before. */
+  public static void saveMeshAsync(ChunkCoordinate coord, byte[] encoded) {
+    WriteBehindQueue<byte[]> queue;
+    synchronized (PersistStorage.class) {
+      if (meshWriteQueue == null) {
+        meshWriteQueue = new WriteBehindQueue<>(PersistStorage::writeMesh, WRITE_BACKLOG);
+        meshWriterThread = new Thread(meshWriteQueue, "MeshWriter");
+        meshWriterThread.setDaemon(true);
+        meshWriterThread.start();
+      }
+      queue = meshWriteQueue;
+    }
+    queue.enqueue(coord, encoded);
+  }
 
-    try (FileInputStream fis = new FileInputStream(file);
-        ObjectInputStream ois = new ObjectInputStream(fis)) {
-      return (Blocks[][][]) ois.readObject();
-    } catch (IOException | ClassNotFoundException e) {
+  private static void writeMesh(ChunkCoordinate coord, byte[] encoded) {
+    try {
+      regionFor(meshRegions, MESH_DIR, coord).write(coord.x(), coord.z(), encoded);
+    } catch (IOException | UncheckedIOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /** Returns the last mesh saved for the chunk, or null. */
+  public static byte[] loadMesh(ChunkCoordinate coord) {
+    try {
+      WriteBehindQueue<byte[]> queue = meshWriteQueue;
+      byte[] bytes = queue == null ? null : queue.getPending(coord);
+      return bytes != null
+          ? bytes
+          : regionFor(meshRegions, MESH_DIR, coord).read(coord.x(), coord.z());
+    } catch (IOException | UncheckedIOException e) {
       e.printStackTrace();
       return null;
     }
   }
+
+  /** Writes out queued saves, then closes every open region file. */
+  public static void close() {
+    synchronized (PersistStorage.class) {
+      stopWriter(writeQueue, writerThread);
+      writeQueue = null;
+      writerThread = null;
+      stopWriter(meshWriteQueue, meshWriterThread);
+      meshWriteQueue = null;
+      meshWriterThread = null;
+    }
+    closeRegions(regions);
+    closeRegions(meshRegions);
+  }
+
+  private static void stopWriter(WriteBehindQueue<byte[]> queue, Thread thread) {
+    if (queue == null) return;
+    queue.stop();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void closeRegions(Map<ChunkCoordinate, RegionFile> openRegions) {
+    for (RegionFile region : openRegions.values()) {
+      try {
+        region.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+    openRegions.clear();
+  }
+
+  private static RegionFile regionFor(
+      Map<ChunkCoordinate, RegionFile> openRegions, String subdirectory, ChunkCoordinate coord) {
+    ChunkCoordinate regionCoord =
+        new ChunkCoordinate(
+            Math.floorDiv(coord.x(), RegionFile.REGION_SIZE),
+            Math.floorDiv(coord.z(), RegionFile.REGION_SIZE));
+
+    return openRegions.computeIfAbsent(
+        regionCoord,
+        key -> {
+          File dir = new File(fileName);
+          if (subdirectory != null) {
+            dir = new File(dir, subdirectory);
+          }
+          if (!dir.exists()) {
+            dir.mkdirs();
+          }
+          try {
+            return new RegionFile(new File(dir, key.x() + "_" + key.z() + ".region"));
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
 }
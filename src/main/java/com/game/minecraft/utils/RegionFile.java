@@ -0,0 +1,133 @@
+package com.game.minecraft.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * Container for the saved data of REGION_SIZE x REGION_SIZE chunks in a single file. The file is
+ * split into SECTOR_SIZE sectors. The first two sectors hold the header: a table of sector offsets
+ * followed by a table of payload lengths, one int per chunk. Each payload occupies a contiguous run
+ * of sectors; freed runs are reused by later writes.
+ */
+public class RegionFile implements Closeable {
+
+  public static final int REGION_SIZE = 32;
+  public static final int SECTOR_SIZE = 4096;
+
+  private static final int ENTRIES = REGION_SIZE * REGION_SIZE;
+  private static final int OFFSET_TABLE = 0;
+  private static final int LENGTH_TABLE = ENTRIES * Integer.BYTES;
+  private static final int HEADER_SECTORS = 2 * ENTRIES * Integer.BYTES / SECTOR_SIZE;
+
+  private final RandomAccessFile file;
+  private final FileChannel channel;
+  private final int[] offsets = new int[ENTRIES]; // in sectors, 0 = not stored
+  private final int[] lengths = new int[ENTRIES]; // in bytes
+  private final BitSet usedSectors = new BitSet();
+  private final ByteBuffer entryBuffer = ByteBuffer.allocate(Integer.BYTES);
+
+  public RegionFile(File path) throws IOException {
+    file = new RandomAccessFile(path, "rw");
+    channel = file.getChannel();
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE);
+    if (channel.size() < header.capacity()) {
+      channel.write(header, 0);
+    } else {
+      readFully(header, 0);
+      header.flip();
+      header.asIntBuffer().get(offsets).get(lengths);
+    }
+
+    usedSectors.set(0, HEADER_SECTORS);
+    for (int i = 0; i < ENTRIES; i++) {
+      if (offsets[i] != 0) {
+        usedSectors.set(offsets[i], offsets[i] + sectorsFor(lengths[i]));
+      }
+    }
+  }
+
+  private static int entry(int chunkX, int chunkZ) {
+    return Math.floorMod(chunkX, REGION_SIZE) + Math.floorMod(chunkZ, REGION_SIZE) * REGION_SIZE;
+  }
+
+  private static int sectorsFor(int length) {
+    return (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+  }
+
+  /** Returns the stored payload of a chunk, or null if none was written. */
+  public synchronized byte[] read(int chunkX, int chunkZ) throws IOException {
+    int entry = entry(chunkX, chunkZ);
+    if (offsets[entry] == 0) {
+      return null;
+    }
+
+    ByteBuffer payload = ByteBuffer.allocate(lengths[entry]);
+    readFully(payload, (long) offsets[entry] * SECTOR_SIZE);
+    return payload.array();
+  }
+
+  /** Stores the payload of a chunk, in place when it still fits its current sectors. */
+  public synchronized void write(int chunkX, int chunkZ, byte[] data) throws IOException {
+    int entry = entry(chunkX, chunkZ);
+    int needed = sectorsFor(data.length);
+    int offset = offsets[entry];
+
+    if (offset == 0 || needed > sectorsFor(lengths[entry])) {
+      if (offset != 0) {
+        usedSectors.clear(offset, offset + sectorsFor(lengths[entry]));
+      }
+      offset = allocate(needed);
+    } else {
+      usedSectors.clear(offset + needed, offset + sectorsFor(lengths[entry]));
+    }
+
+    ByteBuffer payload = ByteBuffer.wrap(data);
+    while (payload.hasRemaining()) {
+      channel.write(payload, (long) offset * SECTOR_SIZE + payload.position());
+    }
+
+    offsets[entry] = offset;
+    lengths[entry] = data.length;
+    writeEntry(OFFSET_TABLE + entry * Integer.BYTES, offset);
+    writeEntry(LENGTH_TABLE + entry * Integer.BYTES, data.length);
+  }
+
+  // first-fit over the free runs between used sectors, otherwise append at the end
+  private int allocate(int count) {
+    int start = usedSectors.nextClearBit(HEADER_SECTORS);
+    while (true) {
+      int nextUsed = usedSectors.nextSetBit(start);
+      if (nextUsed == -1 || nextUsed - start >= count) {
+        usedSectors.set(start, start + count);
+        return start;
+      }
+      start = usedSectors.nextClearBit(nextUsed);
+    }
+  }
+
+  private void writeEntry(long position, int value) throws IOException {
+    entryBuffer.clear();
+    entryBuffer.putInt(value).flip();
+    channel.write(entryBuffer, position);
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of region file");
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+    file.close();
+  }
+}
@@ -0,0 +1,111 @@
+package com.game.minecraft.utils;
+
+import com.game.minecraft.world.chunks.ChunkCoordinate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Hands chunk saves to a background writer. Repeated saves of the same coordinate coalesce into the
+ * latest data, and an entry stays readable through getPending() until its write has finished. Once
+ * the backlog reaches its capacity, enqueue() blocks until the writer catches up.
+ *
+ * <p>Data passed to enqueue() must not be modified afterwards.
+ */
+public class WriteBehindQueue<T> implements Runnable {
+
+  private final Map<ChunkCoordinate, T> pending = new LinkedHashMap<>();
+  private final BiConsumer<ChunkCoordinate, T> writer;
+  private final int capacity;
+
+  private boolean running = true;
+
+  public WriteBehindQueue(BiConsumer<ChunkCoordinate, T> writer, int capacity) {
+    this.writer = writer;
+    this.capacity = capacity;
+  }
+
+  public void enqueue(ChunkCoordinate coord, T data) {
+    synchronized (pending) {
+      while (running && pending.size() >= capacity && !pending.containsKey(coord)) {
+        try {
+          pending.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+      if (running && (pending.size() < capacity || pending.containsKey(coord))) {
+        pending.put(coord, data);
+        pending.notifyAll();
+        return;
+      }
+    }
+    // stopped or interrupted while waiting: do not drop the save
+    writer.accept(coord, data);
+  }
+
+  /** Returns data still waiting to be written for the coordinate, or null. */
+  public T getPending(ChunkCoordinate coord) {
+    synchronized (pending) {
+      return pending.get(coord);
+    }
+  }
+
+  public int getBacklog() {
+    synchronized (pending) {
+      return pending.size();
+    }
+  }
+
+  /** Blocks until every queued save has been written. */
+  public void flush() throws InterruptedException {
+    synchronized (pending) {
+      while (!pending.isEmpty()) {
+        pending.wait();
+      }
+    }
+  }
+
+  /** Lets the writer drain the backlog and then exit. */
+  public void stop() {
+    synchronized (pending) {
+      running = false;
+      pending.notifyAll();
+    }
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      Map.Entry<ChunkCoordinate, T> next;
+      synchronized (pending) {
+        while (pending.isEmpty() && running) {
+          try {
+            pending.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+          }
+        }
+        if (pending.isEmpty()) {
+          return;
+        }
+        Map.Entry<ChunkCoordinate, T> oldest = pending.entrySet().iterator().next();
+        next = Map.entry(oldest.getKey(), oldest.getValue());
+      }
+
+      try {
+        writer.accept(next.getKey(), next.getValue());
+      } catch (RuntimeException e) {
+        e.printStackTrace();
+      }
+
+      synchronized (pending) {
+        // a newer save of the same coordinate stays queued
+        pending.remove(next.getKey(), next.getValue());
+        pending.notifyAll();
+      }
+    }
+  }
+}
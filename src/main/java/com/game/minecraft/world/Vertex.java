@@ -1,286 +1,185 @@
 package com.game.minecraft.world;
 
-import com.game.minecraft.utils.FloatArray;
-
+import com.game.minecraft.utils.DirectIntArray;
+
+/**
+ * Emits block faces as quads of packed vertices. A face can cover w by h blocks: its texture
+ * coordinates run from 0 to w and 0 to h in tile units, and the fragment shader repeats the tile
+ * across it.
+ *
+ * <p>A vertex is INTS_PER_VERTEX ints. The first holds the corner in chunk-local block-corner
+ * coordinates (x 0-16, y 0-256 counting down like chunk y, z 0-16) and the face id; the second
+ * holds the atlas tile, the tint index and the tile-local texture coordinates:
+ *
+ * <pre>
+ *   int 0: x (5 bits) | y (9) << 5 | z (5) << 14 | face (3) << 19 | draw slot high (4) << 22
+ *   int 1: tile u (4) | tile v (4) << 4 | tint (2) << 8 | u (5) << 10 | v (5) << 15
+ *          | draw slot low (12) << 20
+ * </pre>
+ *
+ * The 16-bit draw slot is left 0 here and filled in by ChunkMesh on upload; vertex.glsl looks up
+ * the slot's chunk position (see ChunkArena) to turn the corner into world space. A quad is its 4
+ * corners in counterclockwise order; ChunkMesh draws them as the triangles (0, 1, 2) and (2, 3, 0)
+ * through a shared index buffer.
+ */
 public final class Vertex {
-  public static final float ATLAS = 256.0f;
-  public static final float NORMAL_TILE = 16.0f;
-  public static final float NORMAL_FACE_OFFSET = 0.5f;
+  public static final int ATLAS = 256;
+  public static final int NORMAL_TILE = 16;
+
+  public static final int INTS_PER_VERTEX = 2;
+  public static final int VERTICES_PER_QUAD = 4;
+
+  // tint indices, resolved to colors in vertex.glsl
+  public static final int TINT_NONE = 0;
+  public static final int TINT_LEAVES = 1;
+
+  /**
+   * Face directions. Top and bottom quads span +x (width) by +z (height); front and back span +x by
+   * chunk-y (downwards); left and right span +z by chunk-y.
+   */
+  public enum Face {
+    TOP,
+    BOTTOM,
+    FRONT,
+    BACK,
+    LEFT,
+    RIGHT
+  }
 
   private Vertex() {}
 
   public static void addNormalTopFaceWithTexture(
-      FloatArray vertices, float x, float y, float z, float u, float v, float[] color) {
-    float u0 = u / ATLAS;
-    float u1 = (u + NORMAL_TILE) / ATLAS;
-    float v0 = v / ATLAS;
-    float v1 = (v + NORMAL_TILE) / ATLAS;
-
-    // counterclockwise quad
-    addFace(
-        vertices,
-        // triangle 1
-        x - NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u0,
-        v0,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u1,
-        v0,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u1,
-        v1,
-        color,
-        // triangle 2
-        x - NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u0,
-        v1,
-        color);
+      DirectIntArray vertices, int x, int y, int z, int u, int v, int tint) {
+    addQuad(vertices, Face.TOP, x, y, z, 1, 1, u, v, tint);
   }
 
   public static void addNormalBottomFaceWithTexture(
-      FloatArray vertices, float x, float y, float z, float u, float v, float[] color) {
-    float u0 = u / ATLAS;
-    float u1 = (u + NORMAL_TILE) / ATLAS;
-    float v0 = v / ATLAS;
-    float v1 = (v + NORMAL_TILE) / ATLAS;
-
-    addFace(
-        vertices,
-        x - NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u0,
-        v0,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u1,
-        v0,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u1,
-        v1,
-        color,
-        x - NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u0,
-        v1,
-        color);
+      DirectIntArray vertices, int x, int y, int z, int u, int v, int tint) {
+    addQuad(vertices, Face.BOTTOM, x, y, z, 1, 1, u, v, tint);
   }
 
   public static void addNormalFrontFaceWithTexture(
-      FloatArray vertices, float x, float y, float z, float u, float v, float[] color) {
-    float u0 = u / ATLAS;
-    float u1 = (u + NORMAL_TILE) / ATLAS;
-    float v0 = v / ATLAS;
-    float v1 = (v + NORMAL_TILE) / ATLAS;
-
-    addFace(
-        vertices,
-        x - NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u0,
-        v1,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u1,
-        v1,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u1,
-        v0,
-        color,
-        x - NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u0,
-        v0,
-        color);
+      DirectIntArray vertices, int x, int y, int z, int u, int v, int tint) {
+    addQuad(vertices, Face.FRONT, x, y, z, 1, 1, u, v, tint);
   }
 
   public static void addNormalBackFaceWithTexture(
-      FloatArray vertices, float x, float y, float z, float u, float v, float[] color) {
-    float u0 = u / ATLAS;
-    float u1 = (u + NORMAL_TILE) / ATLAS;
-    float v0 = v / ATLAS;
-    float v1 = (v + NORMAL_TILE) / ATLAS;
-
-    addFace(
-        vertices,
-        x - NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u1,
-        v1,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u0,
-        v1,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u0,
-        v0,
-        color,
-        x - NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u1,
-        v0,
-        color);
+      DirectIntArray vertices, int x, int y, int z, int u, int v, int tint) {
+    addQuad(vertices, Face.BACK, x, y, z, 1, 1, u, v, tint);
   }
 
   public static void addNormalLeftFaceWithTexture(
-      FloatArray vertices, float x, float y, float z, float u, float v, float[] color) {
-    float u0 = u / ATLAS;
-    float u1 = (u + NORMAL_TILE) / ATLAS;
-    float v0 = v / ATLAS;
-    float v1 = (v + NORMAL_TILE) / ATLAS;
-
-    addFace(
-        vertices,
-        x - NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u0,
-        v1,
-        color,
-        x - NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u1,
-        v1,
-        color,
-        x - NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u1,
-        v0,
-        color,
-        x - NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u0,
-        v0,
-        color);
+      DirectIntArray vertices, int x, int y, int z, int u, int v, int tint) {
+    addQuad(vertices, Face.LEFT, x, y, z, 1, 1, u, v, tint);
   }
 
   public static void addNormalRightFaceWithTexture(
-      FloatArray vertices, float x, float y, float z, float u, float v, float[] color) {
-    float u0 = u / ATLAS;
-    float u1 = (u + NORMAL_TILE) / ATLAS;
-    float v0 = v / ATLAS;
-    float v1 = (v + NORMAL_TILE) / ATLAS;
+      DirectIntArray vertices, int x, int y, int z, int u, int v, int tint) {
+    addQuad(vertices, Face.RIGHT, x, y, z, 1, 1, u, v, tint);
+  }
 
-    addFace(
-        vertices,
-        x + NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u1,
-        v1,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y - NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u0,
-        v1,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z - NORMAL_FACE_OFFSET,
-        u0,
-        v0,
-        color,
-        x + NORMAL_FACE_OFFSET,
-        y + NORMAL_FACE_OFFSET,
-        z + NORMAL_FACE_OFFSET,
-        u1,
-        v0,
-        color);
+  /**
+   * Adds a face of w by h blocks. (x, y, z) is the chunk-local block holding its first cell: the
+   * one with the lowest x, y and z. (u, v) is the atlas pixel origin of the tile.
+   */
+  public static void addQuad(
+      DirectIntArray vertices,
+      Face face,
+      int x,
+      int y,
+      int z,
+      int w,
+      int h,
+      int u,
+      int v,
+      int tint) {
+    int tile = (u / NORMAL_TILE) | (v / NORMAL_TILE) << 4 | tint << 8;
+    int f = face.ordinal();
+
+    switch (face) {
+      case TOP, BOTTOM -> {
+        int cy = face == Face.TOP ? y : y + 1;
+        addFace(
+            vertices, f, tile, //
+            x, cy, z, 0, 0, //
+            x + w, cy, z, w, 0, //
+            x + w, cy, z + h, w, h, //
+            x, cy, z + h, 0, h);
+      }
+      case FRONT -> {
+        int cz = z + 1;
+        addFace(
+            vertices, f, tile, //
+            x, y + h, cz, 0, h, //
+            x + w, y + h, cz, w, h, //
+            x + w, y, cz, w, 0, //
+            x, y, cz, 0, 0);
+      }
+      case BACK -> {
+        addFace(
+            vertices, f, tile, //
+            x, y + h, z, w, h, //
+            x + w, y + h, z, 0, h, //
+            x + w, y, z, 0, 0, //
+            x, y, z, w, 0);
+      }
+      case LEFT -> {
+        addFace(
+            vertices, f, tile, //
+            x, y + h, z, 0, h, //
+            x, y + h, z + w, w, h, //
+            x, y, z + w, w, 0, //
+            x, y, z, 0, 0);
+      }
+      case RIGHT -> {
+        int cx = x + 1;
+        addFace(
+            vertices, f, tile, //
+            cx, y + h, z + w, w, h, //
+            cx, y + h, z, 0, h, //
+            cx, y, z, 0, 0, //
+            cx, y, z + w, w, 0);
+      }
+    }
   }
 
   /**
-   * Adds a quad (two triangles) in counterclockwise order. Each vertex now has 8 floats: x, y, z,
-   * u, v, r, g, b.
-   *
-   * <p>Pass the 4 corners of the quad in this order:
-   *
-   * <p>(x0, y0, z0, u0, v0, color) (x1, y1, z1, u1, v1, color) (x2, y2, z2, u2, v2, color) (x3, y3,
-   * z3, u3, v3, color)
-   *
-   * <p>Then it’s formed into two triangles.
+   * Adds a quad as its 4 corners in counterclockwise order, each given as (x, y, z, u, v) in block
+   * corners and tiles.
    */
   private static void addFace(
-      FloatArray vertices,
-      float x0,
-      float y0,
-      float z0,
-      float u0,
-      float v0,
-      float[] c0,
-      float x1,
-      float y1,
-      float z1,
-      float u1,
-      float v1,
-      float[] c1,
-      float x2,
-      float y2,
-      float z2,
-      float u2,
-      float v2,
-      float[] c2,
-      float x3,
-      float y3,
-      float z3,
-      float u3,
-      float v3,
-      float[] c3) {
-
-    // Triangle 1
-    addVertex(vertices, x0, y0, z0, u0, v0, c0);
-    addVertex(vertices, x1, y1, z1, u1, v1, c1);
-    addVertex(vertices, x2, y2, z2, u2, v2, c2);
-
-    // Triangle 2
-    addVertex(vertices, x2, y2, z2, u2, v2, c2);
-    addVertex(vertices, x3, y3, z3, u3, v3, c3);
-    addVertex(vertices, x0, y0, z0, u0, v0, c0);
+      DirectIntArray vertices,
+      int face,
+      int tile,
+      int x0,
+      int y0,
+      int z0,
+      int u0,
+      int v0,
+      int x1,
+      int y1,
+      int z1,
+      int u1,
+      int v1,
+      int x2,
+      int y2,
+      int z2,
+      int u2,
+      int v2,
+      int x3,
+      int y3,
+      int z3,
+      int u3,
+      int v3) {
+    addVertex(vertices, x0, y0, z0, u0, v0, face, tile);
+    addVertex(vertices, x1, y1, z1, u1, v1, face, tile);
+    addVertex(vertices, x2, y2, z2, u2, v2, face, tile);
+    addVertex(vertices, x3, y3, z3, u3, v3, face, tile);
   }
 
   private static void addVertex(
-      FloatArray vertices, float x, float y, float z, float u, float v, float[] color) {
-    vertices.add(x);
-    vertices.add(y);
-    vertices.add(z);
-    vertices.add(u);
-    vertices.add(v);
-    // color
-    vertices.add(color[0]);
-    vertices.add(color[1]);
-    vertices.add(color[2]);
+      DirectIntArray vertices, int x, int y, int z, int u, int v, int face, int tile) {
+    vertices.add(x | y << 5 | z << 14 | face << 19);
+    vertices.add(tile | u << 10 | v << 15);
   }
 }
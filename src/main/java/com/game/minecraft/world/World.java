@@ -1,13 +1,15 @@
 package com.game.minecraft.world;
 
+import com.game.minecraft.utils.ChunkCache;
 import com.game.minecraft.utils.Direction;
-import com.game.minecraft.utils.LRU;
 import com.game.minecraft.utils.PersistStorage;
 import com.game.minecraft.world.chunks.Chunk;
 import com.game.minecraft.world.chunks.ChunkCoordinate;
+import com.game.minecraft.world.chunks.ChunkData;
 import com.game.minecraft.world.chunks.ChunkLoader;
 import com.game.minecraft.world.generations.PerlinNoise;
 import com.game.minecraft.world.generations.Simulator;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
@@ -23,8 +25,17 @@ public class World {
 
   private static final String INSTANCE_WORLD_NAME = UUID.randomUUID().toString().replace("-", "");
 
+  // byte budgets of the inactive-chunk cache tiers; independent of render distance
+  private static final long HOT_CACHE_BYTES = 64L * 1024 * 1024;
+  private static final long WARM_CACHE_BYTES = 16L * 1024 * 1024;
+
+  // rings meshed at full detail; each doubling of the ring radius beyond halves the detail
+  private static final int FULL_DETAIL_RADIUS = Integer.getInteger("minecraft.lodRadius", 4);
+
   private final Map<ChunkCoordinate, Chunk> activeChunks = new ConcurrentHashMap<>();
-  private final LRU cachedChunk;
+  // activeChunks' values, refreshed when they change, so the renderer can walk them by index
+  private final ArrayList<Chunk> activeChunkList = new ArrayList<>();
+  private final ChunkCache cachedChunk;
   private Set<ChunkCoordinate> requiredChunks;
 
   private ChunkCoordinate currentPlayerChunk;
@@ -37,7 +48,7 @@ public class World {
       Executors.newSingleThreadScheduledExecutor();
 
   public World() {
-    cachedChunk = new LRU(calculateMaxConcurrentChunks());
+    cachedChunk = new ChunkCache(HOT_CACHE_BYTES, WARM_CACHE_BYTES);
     chunkLoader = new ChunkLoader();
     loaderThread = new Thread(chunkLoader, "ChunkLoader");
     loaderThread.start();
@@ -63,20 +74,17 @@ public class World {
     crossedRegionSimExecutor.shutdownNow();
     chunkLoader.stopLoader();
     loaderThread.interrupt();
-  }
-
-  private int calculateMaxConcurrentChunks() {
-    int baseChunks = (2 * chunkLayerRadius + 1) * (2 * chunkLayerRadius + 1);
-    return (int) (baseChunks * 1.25);
+    PersistStorage.close();
   }
 
   public void updatePlayerPosition(float playerX, float playerZ) {
     int playerChunkX = Math.floorDiv((int) playerX, Chunk.CHUNK_X);
     int playerChunkZ = Math.floorDiv((int) playerZ, Chunk.CHUNK_Z);
-    ChunkCoordinate newPlayerChunk = new ChunkCoordinate(playerChunkX, playerChunkZ);
 
-    if (!newPlayerChunk.equals(currentPlayerChunk)) {
-      currentPlayerChunk = newPlayerChunk;
+    if (currentPlayerChunk == null
+        || currentPlayerChunk.x() != playerChunkX
+        || currentPlayerChunk.z() != playerChunkZ) {
+      currentPlayerChunk = new ChunkCoordinate(playerChunkX, playerChunkZ);
       manageChunks();
     }
 
@@ -91,9 +99,10 @@ public class World {
         if (requiredChunks != null
             && requiredChunks.contains(result.getCoord())
             && !activeChunks.containsKey(result.getCoord())) {
-          Blocks[][][] data = cachedChunk.get(result.getCoord());
+          ChunkData data = cachedChunk.get(result.getCoord());
           if (data != null) {
             activeChunks.put(result.getCoord(), createChunkFromCache(result.getCoord(), data));
+            refreshActiveChunkList();
           }
         }
       }
@@ -105,7 +114,7 @@ public class World {
 
     for (ChunkCoordinate coord : requiredChunks) {
       if (!activeChunks.containsKey(coord)) {
-        Blocks[][][] existingData = cachedChunk.get(coord);
+        ChunkData existingData = cachedChunk.get(coord);
         if (existingData != null) {
           activeChunks.put(coord, createChunkFromCache(coord, existingData));
         } else {
@@ -114,6 +123,10 @@ public class World {
       }
     }
 
+    for (Map.Entry<ChunkCoordinate, Chunk> entry : activeChunks.entrySet()) {
+      entry.getValue().setLod(lodOf(entry.getKey()));
+    }
+
     activeChunks
         .keySet()
         .removeIf(
@@ -129,20 +142,45 @@ public class World {
             });
 
     updateChunkNeighbors();
+    refreshActiveChunkList();
   }
 
-  private Chunk createChunkFromCache(ChunkCoordinate coord, Blocks[][][] blocks) {
+  private void refreshActiveChunkList() {
+    activeChunkList.clear();
+    activeChunkList.addAll(activeChunks.values());
+  }
+
+  private Chunk createChunkFromCache(ChunkCoordinate coord, ChunkData blocks) {
     float x = coord.x() * Chunk.CHUNK_X;
     float z = coord.z() * Chunk.CHUNK_Z;
     Chunk newChunk = new Chunk(x, 0, z);
 
     newChunk.setBlockData(blocks);
+    newChunk.setLod(lodOf(coord));
     return newChunk;
   }
 
+  /**
+   * Mesh level of detail of a chunk by its spiral ring (see generateChunksInSpiral) around the
+   * player: full detail within FULL_DETAIL_RADIUS rings, then one level coarser each time the ring
+   * radius doubles, down to Chunk.MAX_LOD. With the default of 4, a radius of 32 costs about as
+   * many quads as 8 at full detail.
+   */
+  private int lodOf(ChunkCoordinate coord) {
+    int ring =
+        Math.max(
+            Math.abs(coord.x() - currentPlayerChunk.x()),
+            Math.abs(coord.z() - currentPlayerChunk.z()));
+    int lod = 0;
+    for (int radius = FULL_DETAIL_RADIUS; ring > radius && lod < Chunk.MAX_LOD; radius *= 2) {
+      lod++;
+    }
+    return lod;
+  }
+
   private void saveChunkData(ChunkCoordinate coord, Chunk chunk) {
+    cachedChunk.put(coord, chunk.snapshotBlockData());
     chunk.cleanup();
-    cachedChunk.put(coord, chunk.copyBlockData());
   }
 
   private void updateChunkNeighbors() {
@@ -209,10 +247,28 @@ public class World {
     }
   }
 
+  /** The active chunk at the given chunk coordinate, or null. */
+  public Chunk getChunk(ChunkCoordinate coord) {
+    return activeChunks.get(coord);
+  }
+
   public Collection<Chunk> getActiveChunks() {
     return activeChunks.values();
   }
 
+  /** Number of active chunks; with getActiveChunk() a way to visit them that allocates nothing. */
+  public int getActiveChunkCount() {
+    return activeChunkList.size();
+  }
+
+  public Chunk getActiveChunk(int index) {
+    return activeChunkList.get(index);
+  }
+
+  public ChunkCache getChunkCache() {
+    return cachedChunk;
+  }
+
   public int getChunkLayerRadius() {
     return chunkLayerRadius;
   }
@@ -0,0 +1,149 @@
+package com.game.minecraft.world.chunks;
+
+/**
+ * First-fit allocator of ranges in [0, capacity), in whatever unit the caller counts (ChunkArena
+ * counts vertices). Free ranges are kept sorted by offset and merged with their neighbors as soon
+ * as they are freed, so the free list stays as short as the holes between live ranges. Only does
+ * bookkeeping, no GL, and allocates nothing unless the free list has to grow. Not thread safe.
+ */
+public final class ArenaAllocator {
+
+  /** What allocate() returns when no free range is large enough. */
+  public static final int NONE = -1;
+
+  private int capacity;
+  private int used;
+
+  // free ranges sorted by offset, never touching each other
+  private int[] freeOffsets = new int[16];
+  private int[] freeSizes = new int[16];
+  private int freeCount;
+
+  public ArenaAllocator(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Negative arena capacity: " + capacity);
+    }
+    this.capacity = capacity;
+    if (capacity > 0) {
+      insertFree(0, 0, capacity);
+    }
+  }
+
+  /** Offset of a range of size units, the lowest one that fits, or NONE. */
+  public int allocate(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Bad allocation size: " + size);
+    }
+    for (int i = 0; i < freeCount; i++) {
+      if (freeSizes[i] < size) continue;
+      int offset = freeOffsets[i];
+      if (freeSizes[i] == size) {
+        removeFree(i);
+      } else {
+        freeOffsets[i] += size;
+        freeSizes[i] -= size;
+      }
+      used += size;
+      return offset;
+    }
+    return NONE;
+  }
+
+  /** Gives back a range allocate() returned, with the size it was allocated with. */
+  public void free(int offset, int size) {
+    if (size <= 0 || offset < 0 || offset + size > capacity) {
+      throw new IllegalArgumentException(
+          "Range " + offset + "+" + size + " outside arena of " + capacity);
+    }
+    release(offset, size);
+    used -= size;
+  }
+
+  /** Extends the arena to newCapacity; the new units are free. */
+  public void grow(int newCapacity) {
+    if (newCapacity < capacity) {
+      throw new IllegalArgumentException(
+          "Arena can't shrink from " + capacity + " to " + newCapacity);
+    }
+    if (newCapacity == capacity) return;
+    int oldCapacity = capacity;
+    capacity = newCapacity;
+    release(oldCapacity, newCapacity - oldCapacity);
+  }
+
+  private void release(int offset, int size) {
+    // first free range after offset
+    int lo = 0;
+    int hi = freeCount;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (freeOffsets[mid] < offset) lo = mid + 1;
+      else hi = mid;
+    }
+    int next = lo;
+    int previous = next - 1;
+    int end = offset + size;
+    if ((previous >= 0 && freeOffsets[previous] + freeSizes[previous] > offset)
+        || (next < freeCount && freeOffsets[next] < end)) {
+      throw new IllegalStateException("Range " + offset + "+" + size + " is already free");
+    }
+
+    boolean joinsPrevious = previous >= 0 && freeOffsets[previous] + freeSizes[previous] == offset;
+    boolean joinsNext = next < freeCount && freeOffsets[next] == end;
+    if (joinsPrevious && joinsNext) {
+      freeSizes[previous] += size + freeSizes[next];
+      removeFree(next);
+    } else if (joinsPrevious) {
+      freeSizes[previous] += size;
+    } else if (joinsNext) {
+      freeOffsets[next] = offset;
+      freeSizes[next] += size;
+    } else {
+      insertFree(next, offset, size);
+    }
+  }
+
+  private void insertFree(int index, int offset, int size) {
+    if (freeCount == freeOffsets.length) {
+      int[] offsets = new int[freeCount * 2];
+      int[] sizes = new int[freeCount * 2];
+      System.arraycopy(freeOffsets, 0, offsets, 0, freeCount);
+      System.arraycopy(freeSizes, 0, sizes, 0, freeCount);
+      freeOffsets = offsets;
+      freeSizes = sizes;
+    }
+    System.arraycopy(freeOffsets, index, freeOffsets, index + 1, freeCount - index);
+    System.arraycopy(freeSizes, index, freeSizes, index + 1, freeCount - index);
+    freeOffsets[index] = offset;
+    freeSizes[index] = size;
+    freeCount++;
+  }
+
+  private void removeFree(int index) {
+    System.arraycopy(freeOffsets, index + 1, freeOffsets, index, freeCount - index - 1);
+    System.arraycopy(freeSizes, index + 1, freeSizes, index, freeCount - index - 1);
+    freeCount--;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /** Units in live ranges. */
+  public int getUsed() {
+    return used;
+  }
+
+  /** Number of separate free ranges; 1 (or 0 when full) means no fragmentation. */
+  public int getFreeRangeCount() {
+    return freeCount;
+  }
+
+  public int getLargestFree() {
+    int largest = 0;
+    for (int i = 0; i < freeCount; i++) {
+      largest = Math.max(largest, freeSizes[i]);
+    }
+    return largest;
+  }
+}
@@ -0,0 +1,36 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Blocks;
+
+/**
+ * Fixed-size flat array of Blocks (null = air) behind a ChunkSection. Implementations expose their
+ * contents as a palette plus per-cell palette indices so codecs can work on either.
+ */
+public interface BlockStorage {
+
+  int size();
+
+  Blocks get(int index);
+
+  void set(int index, Blocks block);
+
+  /** Sets cells [from, to) to the same block. */
+  void fill(int from, int to, Blocks block);
+
+  int getPaletteSize();
+
+  Blocks getPaletteEntry(int paletteIndex);
+
+  /** Palette index stored at a cell. */
+  int getPaletteIndex(int index);
+
+  /** Approximate memory footprint in bytes (heap and off-heap), for cache budgeting. */
+  long estimateBytes();
+
+  BlockStorage copy();
+
+  boolean contentEquals(BlockStorage other);
+
+  /** Frees any memory held outside the heap. The storage must not be used afterwards. */
+  default void release() {}
+}
@@ -1,26 +1,11 @@
 package com.game.minecraft.world.chunks;
 
-import static org.lwjgl.opengl.GL11C.GL_FLOAT;
-import static org.lwjgl.opengl.GL15C.GL_ARRAY_BUFFER;
-import static org.lwjgl.opengl.GL15C.GL_STATIC_DRAW;
-import static org.lwjgl.opengl.GL15C.glBindBuffer;
-import static org.lwjgl.opengl.GL15C.glBufferData;
-import static org.lwjgl.opengl.GL15C.glDeleteBuffers;
-import static org.lwjgl.opengl.GL15C.glGenBuffers;
-import static org.lwjgl.opengl.GL20C.glEnableVertexAttribArray;
-import static org.lwjgl.opengl.GL20C.glVertexAttribPointer;
-import static org.lwjgl.opengl.GL30C.glBindVertexArray;
-import static org.lwjgl.opengl.GL30C.glDeleteVertexArrays;
-import static org.lwjgl.opengl.GL30C.glGenVertexArrays;
-import static org.lwjgl.opengl.GL46C.*;
-
 import com.game.minecraft.utils.Direction;
-import com.game.minecraft.utils.FloatArray;
 import com.game.minecraft.world.Blocks;
 import com.game.minecraft.world.Vertex;
-import java.nio.FloatBuffer;
-import org.joml.Matrix4f;
-import org.lwjgl.BufferUtils;
+import com.game.minecraft.world.Vertex.Face;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Chunk {
 
@@ -28,43 +13,53 @@ public class Chunk {
   public static final int CHUNK_Y = 256;
   public static final int CHUNK_Z = 16;
 
-  // 3 floats for position + 2 floats for UV + 3 floats for color = 8 total per vertex
-  private static final int FLOATS_PER_VERTEX = 8;
-  private static final int STRIDE = FLOATS_PER_VERTEX * Float.BYTES;
+  // coarsest level of detail: cells of 2^MAX_LOD blocks a side
+  public static final int MAX_LOD = 3;
 
-  private static final float[] LEAF_GREEN = new float[] {0.3f, 0.8f, 0.3f};
-  private static final float[] WHITE_COLOR = new float[] {1.0f, 1.0f, 1.0f};
+  // merge faces into larger quads; -Dminecraft.greedyMeshing=false meshes one quad per face
+  private static volatile boolean greedyMeshing =
+      Boolean.parseBoolean(System.getProperty("minecraft.greedyMeshing", "true"));
 
-  private final Blocks[][][] blocks = new Blocks[CHUNK_X][CHUNK_Y][CHUNK_Z];
-  private final FloatArray opaqueVertices = new FloatArray(1024);
-  private final FloatArray waterVertices = new FloatArray(1024);
+  // replaced as a whole by setBlockData() from the simulation thread; only read in place here
+  private volatile ChunkData blocks = new ChunkData();
 
   private Chunk front, back, left, right;
-  private boolean isDirty;
+  // bit s set = section s needs re-meshing
+  private final AtomicInteger dirtySections = new AtomicInteger();
   private boolean isOreDecorated = false;
   private boolean treeDecorated = false;
+  // set by cleanup(); builds still in flight are then dropped instead of uploaded
+  private boolean unloaded = false;
+  // mesh builds that failed since the last upload; render thread only
+  private int failedBuilds;
+  // mesh level of detail, 0 = full; set from the render thread
+  private int lod = 0;
 
   private final float xcoord, ycoord, zcoord;
 
-  private int opaqueVaoId;
-  private int opaqueVboId;
-  private int opaqueVertexCount;
-
-  private int waterVaoId;
-  private int waterVboId;
-  private int waterVertexCount;
-
-  // origin 0,0,0 and will translate through xyz in buildmesh
-  private final Matrix4f modelMatrix = new Matrix4f().translate(0, 0, 0);
+  private final ChunkMesh opaqueMesh;
+  private final ChunkMesh waterMesh;
+  // ChunkArena draw slot of both meshes, taken on the first upload with vertices; render thread
+  private int drawSlot = ChunkArena.NO_SLOT;
+  // SectionConnectivity per section, as of the last upload; render thread only
+  private final long[] connectivity = new long[ChunkData.SECTION_COUNT];
+  // OccluderSpans as of the last upload; render thread only
+  private final int[] occluderSpans = new int[OccluderSpans.TILES];
+  // sections the last SectionVisibility walk reached, valid for walk number visitedWalk
+  private int visitedSections;
+  private int visitedWalk;
 
   public Chunk(float xpos, float ypos, float zpos) {
     xcoord = xpos;
     ycoord = ypos;
     zcoord = zpos;
+    opaqueMesh = new ChunkMesh();
+    waterMesh = new ChunkMesh();
 
     front = back = left = right = null;
 
-    isDirty = true;
+    Arrays.fill(connectivity, SectionConnectivity.ALL);
+    setAsDirty();
   }
 
   public float getXCoord() {
@@ -79,60 +74,70 @@ public class Chunk {
     return zcoord;
   }
 
-  public int getOpaqueVaoId() {
-    return opaqueVaoId;
+  public ChunkCoordinate getCoordinate() {
+    return new ChunkCoordinate(
+        Math.floorDiv((int) xcoord, CHUNK_X), Math.floorDiv((int) zcoord, CHUNK_Z));
   }
 
-  public int getOpaqueVertexCount() {
-    return opaqueVertexCount;
+  public ChunkMesh getOpaqueMesh() {
+    return opaqueMesh;
   }
 
-  public int getWaterVaoId() {
-    return waterVaoId;
+  public ChunkMesh getWaterMesh() {
+    return waterMesh;
   }
 
-  public int getWaterVertexCount() {
-    return waterVertexCount;
+  public int getLod() {
+    return lod;
   }
 
-  public boolean isDirty() {
-    return isDirty;
-  }
-
-  public Matrix4f getModelMatrix4f() {
-    return modelMatrix;
+  /**
+   * Meshes the chunk from cells of 2^lod blocks a side from now on (see LodDownsampler). Neighbors
+   * are re-meshed too, since their faces along this chunk are culled against its cells.
+   */
+  public void setLod(int lod) {
+    if (lod < 0 || lod > MAX_LOD) {
+      throw new IllegalArgumentException("Level of detail out of range: " + lod);
+    }
+    if (lod == this.lod) return;
+    this.lod = lod;
+    setAsDirty();
+    Chunk neighbor;
+    if ((neighbor = front) != null) neighbor.setAsDirty();
+    if ((neighbor = back) != null) neighbor.setAsDirty();
+    if ((neighbor = left) != null) neighbor.setAsDirty();
+    if ((neighbor = right) != null) neighbor.setAsDirty();
   }
 
-  public Blocks[][][] getAllBlocks() {
-    return blocks;
+  public boolean isDirty() {
+    return dirtySections.get() != 0;
   }
 
   public Blocks getBlockAt(int x, int y, int z) {
     if (!inBounds(x, y, z)) {
       return null;
     }
-    return blocks[x][y][z];
+    return blocks.get(x, y, z);
   }
 
-  public Blocks[][][] copyBlockData() {
-    Blocks[][][] copy = new Blocks[CHUNK_X][CHUNK_Y][CHUNK_Z];
-    for (int x = 0; x < CHUNK_X; x++) {
-      for (int y = 0; y < CHUNK_Y; y++) {
-        System.arraycopy(blocks[x][y], 0, copy[x][y], 0, CHUNK_Z);
-      }
-    }
-    return copy;
+  /** y of the topmost block of the given type in column (x, z), or Heightmap.NONE. */
+  public int getHeight(Heightmap.Type type, int x, int z) {
+    return blocks.getHeight(type, x, z);
   }
 
-  public void setBlockData(Blocks[][][] data) {
-    if (isDataEqual(data)) return;
+  /** O(1) copy-on-write view of the current blocks; the caller must release() it. */
+  public synchronized ChunkData snapshotBlockData() {
+    return blocks.snapshot();
+  }
 
-    for (int x = 0; x < CHUNK_X; x++) {
-      for (int y = 0; y < CHUNK_Y; y++) {
-        System.arraycopy(data[x][y], 0, blocks[x][y], 0, CHUNK_Z);
-      }
-    }
-    setAsDirty();
+  /** Takes a snapshot of data, unless it is the version this chunk already holds. */
+  public synchronized void setBlockData(ChunkData data) {
+    if (data.getVersion() == blocks.getVersion()) return;
+
+    ChunkData old = blocks;
+    blocks = data.snapshot();
+    markChangedSections(old, blocks);
+    old.release();
   }
 
   public void setOreDecorated(boolean isOreDecorated) {
@@ -143,19 +148,6 @@ public class Chunk {
     this.treeDecorated = decorated;
   }
 
-  private boolean isDataEqual(Blocks[][][] data) {
-    for (int x = 0; x < CHUNK_X; x++) {
-      for (int y = 0; y < CHUNK_Y; y++) {
-        for (int z = 0; z < CHUNK_Z; z++) {
-          if (blocks[x][y][z] != data[x][y][z]) {
-            return false;
-          }
-        }
-      }
-    }
-    return true;
-  }
-
   public boolean isOreDecorated() {
     return isOreDecorated;
   }
@@ -164,39 +156,160 @@ public class Chunk {
     return treeDecorated;
   }
 
-  public void setBlockAt(int x, int y, int z, Blocks block) {
+  public synchronized void setBlockAt(int x, int y, int z, Blocks block) {
     if (!inBounds(x, y, z)) {
       return;
     }
-    blocks[x][y][z] = block;
-    this.setAsDirty();
+    if (blocks.get(x, y, z) == block) return;
+    blocks.set(x, y, z, block);
+    markBlockDirty(x, y, z);
   }
 
   public void setAsDirty() {
-    isDirty = true;
+    dirtySections.set((1 << ChunkData.SECTION_COUNT) - 1);
+  }
+
+  void markSectionsDirty(int mask) {
+    dirtySections.getAndUpdate(dirty -> dirty | mask);
+  }
+
+  /**
+   * Marks the section holding (x, y, z) dirty, plus the sections whose faces it borders: the one
+   * above or below when y is on a section boundary, and the same section of a neighboring chunk
+   * when x or z is on the chunk edge. Below full detail the boundaries are as thick as a cell.
+   */
+  private void markBlockDirty(int x, int y, int z) {
+    int edge = 1 << lod;
+    int s = y / ChunkSection.SIZE;
+    int localY = y % ChunkSection.SIZE;
+    int mask = 1 << s;
+    if (localY < edge && s > 0) mask |= 1 << (s - 1);
+    if (localY >= ChunkSection.SIZE - edge && s < ChunkData.SECTION_COUNT - 1) mask |= 1 << (s + 1);
+    markSectionsDirty(mask);
+
+    int sectionBit = 1 << s;
+    Chunk neighbor;
+    if (x < edge && (neighbor = left) != null) neighbor.markSectionsDirty(sectionBit);
+    if (x >= CHUNK_X - edge && (neighbor = right) != null) neighbor.markSectionsDirty(sectionBit);
+    if (z < edge && (neighbor = back) != null) neighbor.markSectionsDirty(sectionBit);
+    if (z >= CHUNK_Z - edge && (neighbor = front) != null) neighbor.markSectionsDirty(sectionBit);
+  }
+
+  // ChangedCells flags
+  private static final int CHANGED = 1;
+  private static final int CHANGED_TOP = 1 << 1;
+  private static final int CHANGED_BOTTOM = 1 << 2;
+  private static final int CHANGED_LEFT = 1 << 3;
+  private static final int CHANGED_RIGHT = 1 << 4;
+  private static final int CHANGED_BACK = 1 << 5;
+  private static final int CHANGED_FRONT = 1 << 6;
+
+  /**
+   * Marks what changed between two versions of the blocks, section by section. Sections still
+   * shared between the versions are unchanged; others are compared cell by cell so that neighbors
+   * are only marked when a changed cell lies on the shared boundary.
+   */
+  private void markChangedSections(ChunkData before, ChunkData after) {
+    int edge = 1 << lod;
+    int mask = 0;
+    int leftMask = 0, rightMask = 0, backMask = 0, frontMask = 0;
+    for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+      ChunkSection a = before.getSection(s);
+      ChunkSection b = after.getSection(s);
+      if (a == b) continue;
+
+      int changed = changedCells(a, b, edge);
+      if (changed == 0) continue;
+      mask |= 1 << s;
+      if ((changed & CHANGED_TOP) != 0 && s > 0) mask |= 1 << (s - 1);
+      if ((changed & CHANGED_BOTTOM) != 0 && s < ChunkData.SECTION_COUNT - 1) mask |= 1 << (s + 1);
+      if ((changed & CHANGED_LEFT) != 0) leftMask |= 1 << s;
+      if ((changed & CHANGED_RIGHT) != 0) rightMask |= 1 << s;
+      if ((changed & CHANGED_BACK) != 0) backMask |= 1 << s;
+      if ((changed & CHANGED_FRONT) != 0) frontMask |= 1 << s;
+    }
+    if (mask == 0) return;
+
+    markSectionsDirty(mask);
+    Chunk neighbor;
+    if (leftMask != 0 && (neighbor = left) != null) neighbor.markSectionsDirty(leftMask);
+    if (rightMask != 0 && (neighbor = right) != null) neighbor.markSectionsDirty(rightMask);
+    if (backMask != 0 && (neighbor = back) != null) neighbor.markSectionsDirty(backMask);
+    if (frontMask != 0 && (neighbor = front) != null) neighbor.markSectionsDirty(frontMask);
+  }
+
+  /**
+   * CHANGED_* flags for the cells that differ between two sections (null = all air); a boundary is
+   * edge blocks thick.
+   */
+  private static int changedCells(ChunkSection a, ChunkSection b, int edge) {
+    int changed = 0;
+    for (int localY = 0; localY < ChunkSection.SIZE; localY++) {
+      for (int x = 0; x < CHUNK_X; x++) {
+        for (int z = 0; z < CHUNK_Z; z++) {
+          Blocks before = a == null ? null : a.get(x, localY, z);
+          Blocks after = b == null ? null : b.get(x, localY, z);
+          if (before == after) continue;
+
+          changed |= CHANGED;
+          if (localY < edge) changed |= CHANGED_TOP;
+          if (localY >= ChunkSection.SIZE - edge) changed |= CHANGED_BOTTOM;
+          if (x < edge) changed |= CHANGED_LEFT;
+          if (x >= CHUNK_X - edge) changed |= CHANGED_RIGHT;
+          if (z < edge) changed |= CHANGED_BACK;
+          if (z >= CHUNK_Z - edge) changed |= CHANGED_FRONT;
+        }
+      }
+    }
+    return changed;
   }
 
+  /**
+   * Links the chunk on the given side, or unlinks it with null. Only a change re-meshes anything,
+   * and then only the sections holding blocks, since the faces on that side are culled against the
+   * neighbor's.
+   */
   public void setNeighbor(Direction direction, Chunk neighbor) {
+    Chunk old =
+        switch (direction) {
+          case FORWARD -> front;
+          case BACKWARD -> back;
+          case LEFT -> left;
+          case RIGHT -> right;
+        };
+    if (old == neighbor) return;
+
     switch (direction) {
       case FORWARD -> front = neighbor;
       case BACKWARD -> back = neighbor;
       case LEFT -> left = neighbor;
       case RIGHT -> right = neighbor;
     }
-    if (neighbor != null) this.setAsDirty();
+    markSectionsDirty(nonEmptySections());
+  }
+
+  private int nonEmptySections() {
+    ChunkData data = blocks;
+    int mask = 0;
+    for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+      if (!data.isSectionEmpty(s)) mask |= 1 << s;
+    }
+    return mask;
   }
 
-  public void cleanup() {
+  /** Frees GPU resources and off-heap block data; copy the block data out first if needed. */
+  public synchronized void cleanup() {
+    unloaded = true;
     cleanupGPUResources();
     cleanNeighbors();
+    blocks.release();
   }
 
   private void cleanupGPUResources() {
-    if (opaqueVaoId != 0) glDeleteVertexArrays(opaqueVaoId);
-    if (opaqueVboId != 0) glDeleteBuffers(opaqueVboId);
-    if (waterVaoId != 0) glDeleteVertexArrays(waterVaoId);
-    if (waterVboId != 0) glDeleteBuffers(waterVboId);
-    opaqueVaoId = opaqueVboId = waterVaoId = waterVboId = 0;
+    opaqueMesh.release();
+    waterMesh.release();
+    if (drawSlot != ChunkArena.NO_SLOT) ChunkArena.releaseSlot(drawSlot);
+    drawSlot = ChunkArena.NO_SLOT;
   }
 
   private void cleanNeighbors() {
@@ -207,186 +320,114 @@ public class Chunk {
     front = back = left = right = null;
   }
 
-  public void buildMesh() {
-    if (!isDirty) return;
-
-    cleanupGPUResources();
-    opaqueVertices.clear();
-    waterVertices.clear();
-
-    for (int y = 0; y < CHUNK_Y; y++) {
-      for (int x = 0; x < CHUNK_X; x++) {
-        for (int z = 0; z < CHUNK_Z; z++) {
-          addBlockToMesh(x, y, z, blocks[x][y][z]);
-        }
+  /** Clears and returns the dirty sections, for a ChunkMesher build of just those. */
+  int takeDirtySections() {
+    return dirtySections.getAndSet(0);
+  }
+
+  /**
+   * Snapshots this chunk's blocks and its loaded neighbors', with their levels of detail, for
+   * meshing; release() it after.
+   */
+  ChunkNeighborhood snapshotNeighborhood() {
+    Chunk f = front, b = back, l = left, r = right;
+    return new ChunkNeighborhood(
+        snapshotBlockData(),
+        f == null ? null : f.snapshotBlockData(),
+        b == null ? null : b.snapshotBlockData(),
+        l == null ? null : l.snapshotBlockData(),
+        r == null ? null : r.snapshotBlockData(),
+        lod,
+        f == null ? 0 : f.lod,
+        b == null ? 0 : b.lod,
+        l == null ? 0 : l.lod,
+        r == null ? 0 : r.lod);
+  }
+
+  /**
+   * Uploads a finished build of the dirty sections; the rest of the mesh is kept. While every draw
+   * slot is taken, a build with vertices is not uploaded and its sections stay dirty. GL thread.
+   */
+  void uploadMesh(ChunkMesher.MeshResult result) {
+    failedBuilds = 0;
+    if (unloaded) return;
+    boolean hasVertices =
+        result.opaqueOffsets[ChunkData.SECTION_COUNT] > 0
+            || result.waterOffsets[ChunkData.SECTION_COUNT] > 0;
+    if (hasVertices && drawSlot == ChunkArena.NO_SLOT) {
+      drawSlot = ChunkArena.acquireSlot(xcoord, ycoord, zcoord);
+      if (drawSlot == ChunkArena.NO_SLOT) {
+        markSectionsDirty(result.dirtySections);
+        return;
       }
     }
-
-    opaqueVertexCount = opaqueVertices.size() / FLOATS_PER_VERTEX;
-    uploadVerticesToGPU(opaqueVertices, true);
-
-    waterVertexCount = waterVertices.size() / FLOATS_PER_VERTEX;
-    uploadVerticesToGPU(waterVertices, false);
-
-    isDirty = false;
-  }
-
-  private void uploadVerticesToGPU(FloatArray verticesArray, boolean isOpaque) {
-    FloatBuffer buffer = BufferUtils.createFloatBuffer(verticesArray.size());
-    buffer.put(verticesArray.elements(), 0, verticesArray.size()).flip();
-
-    int vao = glGenVertexArrays();
-    int vbo = glGenBuffers();
-
-    if (isOpaque) {
-      opaqueVaoId = vao;
-      opaqueVboId = vbo;
-    } else {
-      waterVaoId = vao;
-      waterVboId = vbo;
+    opaqueMesh.upload(result.dirtySections, result.opaqueVertices, result.opaqueOffsets, drawSlot);
+    waterMesh.upload(result.dirtySections, result.waterVertices, result.waterOffsets, drawSlot);
+    for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+      if ((result.dirtySections & (1 << s)) != 0) connectivity[s] = result.connectivity[s];
     }
-
-    glBindVertexArray(vao);
-    glBindBuffer(GL_ARRAY_BUFFER, vbo);
-    glBufferData(GL_ARRAY_BUFFER, buffer, GL_STATIC_DRAW);
-
-    glVertexAttribPointer(0, 3, GL_FLOAT, false, STRIDE, 0L);
-    glEnableVertexAttribArray(0);
-    glVertexAttribPointer(1, 2, GL_FLOAT, false, STRIDE, 3L * Float.BYTES);
-    glEnableVertexAttribArray(1);
-    glVertexAttribPointer(2, 3, GL_FLOAT, false, STRIDE, 5L * Float.BYTES);
-    glEnableVertexAttribArray(2);
-
-    glBindBuffer(GL_ARRAY_BUFFER, 0);
-    glBindVertexArray(0);
+    System.arraycopy(result.occluderSpans, 0, occluderSpans, 0, OccluderSpans.TILES);
   }
 
-  private void addBlockToMesh(int x, int y, int z, Blocks block) {
-    if (block == null) return;
-
-    float xPos = xcoord + x;
-    float yPos = ycoord - y;
-    float zPos = zcoord + z;
-
-    // make Leaves always green_tint, otherwise white
-    // TODO: color based on biome
-    boolean isLeaves = (block == Blocks.GREY_LEAVES);
-    float[] color = isLeaves ? LEAF_GREEN : WHITE_COLOR;
-
-    if (block == Blocks.WATER1) {
-      addWaterBlockToMesh(x, y, z, xPos, yPos, zPos, block, color);
-    } else {
-      addOpaqueBlockFaces(x, y, z, xPos, yPos, zPos, block, color);
-    }
+  /** Counts a failed mesh build and returns how many failed in a row. */
+  int countFailedBuild() {
+    return ++failedBuilds;
   }
 
-  private void addOpaqueBlockFaces(
-      int x, int y, int z, float xPos, float yPos, float zPos, Blocks block, float[] color) {
-
-    if (!blockExistsAndNotTransparentAt(x, y - 1, z) || debugBoolean(x, y, z)) {
-      Vertex.addNormalTopFaceWithTexture(
-          opaqueVertices, xPos, yPos, zPos, block.getTopX(), block.getTopY(), color);
-    }
-    if (!blockExistsAndNotTransparentAt(x, y + 1, z) || debugBoolean(x, y, z)) {
-      Vertex.addNormalBottomFaceWithTexture(
-          opaqueVertices, xPos, yPos, zPos, block.getBottomX(), block.getBottomY(), color);
-    }
-    if (!blockExistsAndNotTransparentAt(x, y, z + 1) || debugBoolean(x, y, z)) {
-      Vertex.addNormalFrontFaceWithTexture(
-          opaqueVertices, xPos, yPos, zPos, block.getSideX(), block.getSideY(), color);
-    }
-    if (!blockExistsAndNotTransparentAt(x, y, z - 1) || debugBoolean(x, y, z)) {
-      Vertex.addNormalBackFaceWithTexture(
-          opaqueVertices, xPos, yPos, zPos, block.getSideX(), block.getSideY(), color);
-    }
-    if (!blockExistsAndNotTransparentAt(x - 1, y, z) || debugBoolean(x, y, z)) {
-      Vertex.addNormalLeftFaceWithTexture(
-          opaqueVertices, xPos, yPos, zPos, block.getSideX(), block.getSideY(), color);
-    }
-    if (!blockExistsAndNotTransparentAt(x + 1, y, z) || debugBoolean(x, y, z)) {
-      Vertex.addNormalRightFaceWithTexture(
-          opaqueVertices, xPos, yPos, zPos, block.getSideX(), block.getSideY(), color);
-    }
+  /** OccluderSpans span of the given tile, EMPTY until the chunk is first meshed. */
+  public int getOccluderSpan(int tile) {
+    return occluderSpans[tile];
   }
 
-  private void addWaterBlockToMesh(
-      int x, int y, int z, float xPos, float yPos, float zPos, Blocks block, float[] color) {
-
-    if (!waterExistsAt(x, y - 1, z)) {
-      Vertex.addNormalTopFaceWithTexture(
-          waterVertices, xPos, yPos, zPos, block.getTopX(), block.getTopY(), color);
-    }
-    if (!waterExistsAt(x, y + 1, z)) {
-      Vertex.addNormalBottomFaceWithTexture(
-          waterVertices, xPos, yPos, zPos, block.getBottomX(), block.getBottomY(), color);
-    }
-    if (!waterExistsAt(x, y, z + 1)) {
-      Vertex.addNormalFrontFaceWithTexture(
-          waterVertices, xPos, yPos, zPos, block.getSideX(), block.getSideY(), color);
-    }
-    if (!waterExistsAt(x, y, z - 1)) {
-      Vertex.addNormalBackFaceWithTexture(
-          waterVertices, xPos, yPos, zPos, block.getSideX(), block.getSideY(), color);
-    }
-    if (!waterExistsAt(x - 1, y, z)) {
-      Vertex.addNormalLeftFaceWithTexture(
-          waterVertices, xPos, yPos, zPos, block.getSideX(), block.getSideY(), color);
-    }
-    if (!waterExistsAt(x + 1, y, z)) {
-      Vertex.addNormalRightFaceWithTexture(
-          waterVertices, xPos, yPos, zPos, block.getSideX(), block.getSideY(), color);
-    }
+  long getConnectivity(int sectionIndex) {
+    return connectivity[sectionIndex];
   }
 
-  private boolean blockExistsAndNotTransparentAt(int x, int y, int z) {
-    if (!inBounds(0, y, 0)) return false; // theres no vertical neighbors
-
-    if (x < 0) {
-      return left != null && left.blockExistsAndNotTransparentAt(x + CHUNK_X, y, z);
-    } else if (x >= CHUNK_X) {
-      return right != null && right.blockExistsAndNotTransparentAt(x - CHUNK_X, y, z);
-    }
+  /** The loaded chunk beyond the given side face, or null (also for TOP and BOTTOM). */
+  Chunk getNeighbor(Face face) {
+    return switch (face) {
+      case FRONT -> front;
+      case BACK -> back;
+      case LEFT -> left;
+      case RIGHT -> right;
+      case TOP, BOTTOM -> null;
+    };
+  }
 
-    if (z < 0) {
-      return back != null && back.blockExistsAndNotTransparentAt(x, y, z + CHUNK_Z);
-    } else if (z >= CHUNK_Z) {
-      return front != null && front.blockExistsAndNotTransparentAt(x, y, z - CHUNK_Z);
+  /** Records that the given walk reached a section; returns false if it already had. */
+  boolean visit(int walk, int sectionIndex) {
+    if (visitedWalk != walk) {
+      visitedWalk = walk;
+      visitedSections = 0;
     }
-
-    return blockExistsAndNotTransparentLocallyAt(x, y, z);
+    int bit = 1 << sectionIndex;
+    if ((visitedSections & bit) != 0) return false;
+    visitedSections |= bit;
+    return true;
   }
 
-  private boolean blockExistsAndNotTransparentLocallyAt(int x, int y, int z) {
-    if (!inBounds(x, y, z)) {
-      return false;
-    }
-    return (blocks[x][y][z] != null && blocks[x][y][z].isSolid());
+  /** Sections the given SectionVisibility walk reached, as a bit mask. */
+  public int getVisitedSections(int walk) {
+    return visitedWalk == walk ? visitedSections : 0;
   }
 
-  private boolean waterExistsAt(int x, int y, int z) {
-    if (!inBounds(0, y, 0)) return false;
-    if (x < 0) {
-      return (left != null) && left.waterExistsAt(x + CHUNK_X, y, z);
-    } else if (x >= CHUNK_X) {
-      return (right != null) && right.waterExistsAt(x - CHUNK_X, y, z);
-    }
+  public static boolean isGreedyMeshing() {
+    return greedyMeshing;
+  }
 
-    if (z < 0) {
-      return (back != null) && back.waterExistsAt(x, y, z + CHUNK_Z);
-    } else if (z >= CHUNK_Z) {
-      return (front != null) && front.waterExistsAt(x, y, z - CHUNK_Z);
-    }
+  /** Switches between the greedy and the per-face mesher; chunks pick it up when next re-meshed. */
+  public static void setGreedyMeshing(boolean enabled) {
+    greedyMeshing = enabled;
+  }
 
-    return blocks[x][y][z] == Blocks.WATER1;
+  static int tintOf(Blocks block) {
+    // make Leaves always green_tint, otherwise white
+    // TODO: color based on biome
+    boolean isLeaves = (block == Blocks.GREY_LEAVES);
+    return isLeaves ? Vertex.TINT_LEAVES : Vertex.TINT_NONE;
   }
 
   private boolean inBounds(int x, int y, int z) {
     return (x >= 0 && x < CHUNK_X && y >= 0 && y < CHUNK_Y && z >= 0 && z < CHUNK_Z);
   }
-
-  private boolean debugBoolean(int x, int y, int z) {
-    return (inBounds(x, y, z) && blocks[x][y][z] == Blocks.IRON_ORE)
-        || (inBounds(x, y, z) && blocks[x][y][z] == Blocks.DIAMOND_ORE)
-        || (inBounds(x, y, z) && blocks[x][y][z] == Blocks.COAL_ORE);
-  }
 }
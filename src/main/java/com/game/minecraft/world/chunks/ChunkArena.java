@@ -0,0 +1,210 @@
+package com.game.minecraft.world.chunks;
+
+import static org.lwjgl.opengl.GL46C.*;
+
+import com.game.minecraft.world.Vertex;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.PointerBuffer;
+
+/**
+ * The one vertex buffer every ChunkMesh lives in, carved up by an ArenaAllocator and drawn through
+ * one vertex array, so a whole render pass is a single glMultiDrawElementsBaseVertex. When the
+ * arena is full its buffer is doubled and the old contents copied over on the GPU.
+ *
+ * <p>Each chunk with vertices also holds a draw slot, shared by its meshes, whose number ChunkMesh
+ * packs into the vertices (see Vertex) and whose chunk position vertex.glsl reads from a texture
+ * buffer, in place of a per-draw uniform. Meshes queue their section ranges with queueDraw() and
+ * the renderer issues them with drawQueued(). GL objects are created on first use. Render thread
+ * only.
+ */
+public final class ChunkArena {
+
+  /** Texture unit the slot positions are bound to while drawing; uChunkOffsets samples it. */
+  public static final int OFFSETS_TEXTURE_UNIT = 1;
+
+  /** What acquireSlot() returns when every slot is taken. */
+  static final int NO_SLOT = -1;
+
+  // a vertex's draw slot: its low SLOT_LOW_BITS in the second int from SLOT_SHIFT up, the rest in
+  // the first int from SLOT_HIGH_SHIFT up
+  static final int SLOT_SHIFT = 20;
+  static final int SLOT_LOW_BITS = Integer.SIZE - SLOT_SHIFT;
+  static final int SLOT_HIGH_SHIFT = 22;
+  // the texture buffer size GL 3.3 guarantees; at one slot per chunk, a render distance of 127
+  static final int MAX_SLOTS = 1 << 16;
+
+  private static final int STRIDE = Vertex.INTS_PER_VERTEX * Integer.BYTES;
+  private static final int INITIAL_VERTICES = 1 << 18; // 2 MiB
+
+  private static final ArenaAllocator allocator = new ArenaAllocator(0);
+  private static int vaoId;
+  private static int vboId;
+
+  // xyz and a pad per slot, mirrored into the texture buffer before drawing
+  private static final FloatBuffer slotOffsets = BufferUtils.createFloatBuffer(MAX_SLOTS * 4);
+  private static int dirtyFrom = MAX_SLOTS;
+  private static int dirtyTo;
+  private static int[] freeSlots = new int[64];
+  private static int freeSlotCount;
+  private static int nextSlot;
+  private static int offsetsBufferId;
+  private static int offsetsTextureId;
+
+  // the queued draws; every range starts at index 0 of the QuadIndexBuffer
+  private static IntBuffer queuedCounts = BufferUtils.createIntBuffer(1024);
+  private static IntBuffer queuedBaseVertices = BufferUtils.createIntBuffer(1024);
+  private static PointerBuffer queuedIndices = BufferUtils.createPointerBuffer(1024);
+
+  private ChunkArena() {}
+
+  /** First vertex of a free range of the given number of vertices, growing the arena if needed. */
+  static int allocate(int vertices) {
+    int first = allocator.allocate(vertices);
+    if (first == ArenaAllocator.NONE) {
+      int capacity = allocator.getCapacity();
+      int needed = Math.max(INITIAL_VERTICES, capacity + vertices);
+      resize(Math.max(needed, capacity * 2));
+      first = allocator.allocate(vertices);
+    }
+    return first;
+  }
+
+  static void free(int first, int vertices) {
+    allocator.free(first, vertices);
+  }
+
+  /** Uploads the vertices to the range starting at vertex first. */
+  static void write(int first, IntBuffer vertices) {
+    glBindBuffer(GL_ARRAY_BUFFER, vboId);
+    glBufferSubData(GL_ARRAY_BUFFER, (long) first * STRIDE, vertices);
+    glBindBuffer(GL_ARRAY_BUFFER, 0);
+  }
+
+  private static void resize(int vertices) {
+    int oldVbo = vboId;
+    long oldBytes = (long) allocator.getCapacity() * STRIDE;
+    vboId = glGenBuffers();
+    glBindBuffer(GL_ARRAY_BUFFER, vboId);
+    glBufferData(GL_ARRAY_BUFFER, (long) vertices * STRIDE, GL_DYNAMIC_DRAW);
+    if (oldVbo != 0) {
+      glBindBuffer(GL_COPY_READ_BUFFER, oldVbo);
+      glCopyBufferSubData(GL_COPY_READ_BUFFER, GL_ARRAY_BUFFER, 0, 0, oldBytes);
+      glBindBuffer(GL_COPY_READ_BUFFER, 0);
+      glDeleteBuffers(oldVbo);
+    }
+    allocator.grow(vertices);
+
+    if (vaoId == 0) {
+      vaoId = glGenVertexArrays();
+    }
+    glBindVertexArray(vaoId);
+    glVertexAttribIPointer(0, Vertex.INTS_PER_VERTEX, GL_UNSIGNED_INT, STRIDE, 0L);
+    glEnableVertexAttribArray(0);
+    QuadIndexBuffer.bind();
+    glBindVertexArray(0);
+    glBindBuffer(GL_ARRAY_BUFFER, 0);
+  }
+
+  /** A free draw slot, placed at the given chunk position, or NO_SLOT when all are in use. */
+  static int acquireSlot(float x, float y, float z) {
+    int slot;
+    if (freeSlotCount > 0) {
+      slot = freeSlots[--freeSlotCount];
+    } else if (nextSlot < MAX_SLOTS) {
+      slot = nextSlot++;
+    } else {
+      return NO_SLOT;
+    }
+    slotOffsets.put(slot * 4, x).put(slot * 4 + 1, y).put(slot * 4 + 2, z);
+    dirtyFrom = Math.min(dirtyFrom, slot);
+    dirtyTo = Math.max(dirtyTo, slot + 1);
+    return slot;
+  }
+
+  static void releaseSlot(int slot) {
+    if (freeSlotCount == freeSlots.length) {
+      int[] grown = new int[freeSlots.length * 2];
+      System.arraycopy(freeSlots, 0, grown, 0, freeSlotCount);
+      freeSlots = grown;
+    }
+    freeSlots[freeSlotCount++] = slot;
+  }
+
+  /** Queues the given number of indices from base vertex first for the next drawQueued(). */
+  static void queueDraw(int indexCount, int first) {
+    if (!queuedCounts.hasRemaining()) {
+      int capacity = queuedCounts.capacity() * 2;
+      queuedCounts = grow(queuedCounts, capacity);
+      queuedBaseVertices = grow(queuedBaseVertices, capacity);
+      queuedIndices = BufferUtils.createPointerBuffer(capacity);
+    }
+    queuedCounts.put(indexCount);
+    queuedBaseVertices.put(first);
+  }
+
+  private static IntBuffer grow(IntBuffer buffer, int capacity) {
+    buffer.flip();
+    return BufferUtils.createIntBuffer(capacity).put(buffer);
+  }
+
+  /**
+   * Draws everything queued since the last call in one glMultiDrawElementsBaseVertex; the caller
+   * has the program and uniforms set up. Returns the number of ranges drawn.
+   */
+  public static int drawQueued() {
+    int ranges = queuedCounts.position();
+    if (ranges == 0) return 0;
+
+    uploadSlotOffsets();
+    glActiveTexture(GL_TEXTURE0 + OFFSETS_TEXTURE_UNIT);
+    glBindTexture(GL_TEXTURE_BUFFER, offsetsTextureId);
+    glActiveTexture(GL_TEXTURE0);
+
+    queuedCounts.flip();
+    queuedBaseVertices.flip();
+    queuedIndices.clear().limit(ranges);
+    glBindVertexArray(vaoId);
+    glMultiDrawElementsBaseVertex(
+        GL_TRIANGLES, queuedCounts, GL_UNSIGNED_INT, queuedIndices, queuedBaseVertices);
+    glBindVertexArray(0);
+    queuedCounts.clear();
+    queuedBaseVertices.clear();
+    return ranges;
+  }
+
+  private static void uploadSlotOffsets() {
+    if (offsetsBufferId == 0) {
+      offsetsBufferId = glGenBuffers();
+      glBindBuffer(GL_TEXTURE_BUFFER, offsetsBufferId);
+      glBufferData(GL_TEXTURE_BUFFER, (long) MAX_SLOTS * 4 * Float.BYTES, GL_DYNAMIC_DRAW);
+      offsetsTextureId = glGenTextures();
+      glBindTexture(GL_TEXTURE_BUFFER, offsetsTextureId);
+      glTexBuffer(GL_TEXTURE_BUFFER, GL_RGBA32F, offsetsBufferId);
+      glBindTexture(GL_TEXTURE_BUFFER, 0);
+    }
+    if (dirtyFrom >= dirtyTo) return;
+    glBindBuffer(GL_TEXTURE_BUFFER, offsetsBufferId);
+    slotOffsets.limit(dirtyTo * 4).position(dirtyFrom * 4);
+    glBufferSubData(GL_TEXTURE_BUFFER, (long) dirtyFrom * 4 * Float.BYTES, slotOffsets);
+    slotOffsets.clear();
+    glBindBuffer(GL_TEXTURE_BUFFER, 0);
+    dirtyFrom = MAX_SLOTS;
+    dirtyTo = 0;
+  }
+
+  /** Draw slots held by chunks, for stats. */
+  public static int getSlotsInUse() {
+    return nextSlot - freeSlotCount;
+  }
+
+  /** Vertices in live ranges and in the whole arena, for stats. */
+  public static int getUsedVertices() {
+    return allocator.getUsed();
+  }
+
+  public static int getCapacityVertices() {
+    return allocator.getCapacity();
+  }
+}
@@ -0,0 +1,211 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Blocks;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Block data of one chunk column, split into vertical ChunkSections. A section that holds only air
+ * is not allocated at all, so copying, comparing and walking the column skips it. Also keeps a
+ * Heightmap per Heightmap.Type, updated on every set().
+ *
+ * <p>snapshot() is copy-on-write: the snapshot shares every section and the heightmaps, and
+ * whichever side writes first copies only the section it touches. Every change takes a new
+ * world-wide version number, so two ChunkData with the same version hold the same blocks.
+ */
+public class ChunkData {
+
+  public static final int SECTION_COUNT = Chunk.CHUNK_Y / ChunkSection.SIZE;
+
+  private static final Heightmap.Type[] HEIGHTMAP_TYPES = Heightmap.Type.values();
+  private static final AtomicLong VERSIONS = new AtomicLong();
+
+  private final ChunkSection[] sections = new ChunkSection[SECTION_COUNT];
+  private Heightmap[] heightmaps = new Heightmap[HEIGHTMAP_TYPES.length];
+  private boolean heightmapsShared;
+  private long version = VERSIONS.incrementAndGet();
+
+  public ChunkData() {
+    for (Heightmap.Type type : HEIGHTMAP_TYPES) {
+      heightmaps[type.ordinal()] = new Heightmap(type);
+    }
+  }
+
+  private ChunkData(ChunkData other) {
+    for (int i = 0; i < SECTION_COUNT; i++) {
+      ChunkSection section = other.sections[i];
+      if (section != null) {
+        section.retain();
+        sections[i] = section;
+      }
+    }
+    heightmaps = other.heightmaps;
+    heightmapsShared = other.heightmapsShared = true;
+    version = other.version;
+  }
+
+  /** Identifies the contents; changes on every modification and is kept by snapshot(). */
+  public long getVersion() {
+    return version;
+  }
+
+  public Blocks get(int x, int y, int z) {
+    ChunkSection section = sections[y / ChunkSection.SIZE];
+    return section == null ? null : section.get(x, y % ChunkSection.SIZE, z);
+  }
+
+  public void set(int x, int y, int z, Blocks block) {
+    int sectionIndex = y / ChunkSection.SIZE;
+    int localY = y % ChunkSection.SIZE;
+    ChunkSection section = sections[sectionIndex];
+    if (section == null) {
+      if (block == null) return;
+      section = new ChunkSection();
+      sections[sectionIndex] = section;
+    } else {
+      if (section.get(x, localY, z) == block) return;
+      if (section.isShared()) {
+        ChunkSection copy = section.copy();
+        section.release();
+        section = copy;
+        sections[sectionIndex] = section;
+      }
+    }
+
+    section.set(x, localY, z, block);
+    if (section.isEmpty()) {
+      sections[sectionIndex] = null;
+      section.release();
+    }
+    ownHeightmaps();
+    for (Heightmap heightmap : heightmaps) {
+      heightmap.update(this, x, y, z, block);
+    }
+    version = VERSIONS.incrementAndGet();
+  }
+
+  private void ownHeightmaps() {
+    if (!heightmapsShared) return;
+
+    Heightmap[] copies = new Heightmap[heightmaps.length];
+    for (int i = 0; i < heightmaps.length; i++) {
+      copies[i] = new Heightmap(heightmaps[i]);
+    }
+    heightmaps = copies;
+    heightmapsShared = false;
+  }
+
+  public Heightmap getHeightmap(Heightmap.Type type) {
+    return heightmaps[type.ordinal()];
+  }
+
+  /** y of the topmost block of the given type in column (x, z), or Heightmap.NONE. */
+  public int getHeight(Heightmap.Type type, int x, int z) {
+    return heightmaps[type.ordinal()].get(x, z);
+  }
+
+  /** Overwrites one column of a heightmap, e.g. with persisted values. */
+  public void setHeight(Heightmap.Type type, int x, int z, int y) {
+    ownHeightmaps();
+    heightmaps[type.ordinal()].set(x, z, y);
+    version = VERSIONS.incrementAndGet();
+  }
+
+  /** First y >= fromY in column (x, z) holding a block of the given type, or Heightmap.NONE. */
+  int findTop(Heightmap.Type type, int x, int fromY, int z) {
+    for (int y = fromY; y < Chunk.CHUNK_Y; y++) {
+      ChunkSection section = sections[y / ChunkSection.SIZE];
+      if (section == null) {
+        y += ChunkSection.SIZE - 1 - y % ChunkSection.SIZE;
+        continue;
+      }
+      if (type.matches(section.get(x, y % ChunkSection.SIZE, z))) {
+        return y;
+      }
+    }
+    return Heightmap.NONE;
+  }
+
+  /** Recomputes every heightmap from the block data. */
+  public void rebuildHeightmaps() {
+    ownHeightmaps();
+    version = VERSIONS.incrementAndGet();
+    for (Heightmap heightmap : heightmaps) {
+      for (int x = 0; x < Chunk.CHUNK_X; x++) {
+        for (int z = 0; z < Chunk.CHUNK_Z; z++) {
+          heightmap.set(x, z, findTop(heightmap.getType(), x, 0, z));
+        }
+      }
+    }
+  }
+
+  /** Returns the section at the given index, or null if it holds only air. Read-only. */
+  public ChunkSection getSection(int sectionIndex) {
+    return sections[sectionIndex];
+  }
+
+  /**
+   * Replaces a whole section; an empty section is stored as absent. Heightmaps are not updated, so
+   * call rebuildHeightmaps() (or setHeight()) once the sections are in place.
+   */
+  public void setSection(int sectionIndex, ChunkSection section) {
+    if (sections[sectionIndex] != null && sections[sectionIndex] != section) {
+      sections[sectionIndex].release();
+    }
+    if (section != null && section.isEmpty()) {
+      section.release();
+      section = null;
+    }
+    sections[sectionIndex] = section;
+    version = VERSIONS.incrementAndGet();
+  }
+
+  public boolean isSectionEmpty(int sectionIndex) {
+    return sections[sectionIndex] == null;
+  }
+
+  /** Approximate footprint in bytes (off-heap sections included), for cache budgeting. */
+  public long estimateBytes() {
+    long bytes = 16 + 16 + 4L * SECTION_COUNT;
+    bytes += heightmaps.length * (32 + 2L * Chunk.CHUNK_X * Chunk.CHUNK_Z);
+    for (ChunkSection section : sections) {
+      if (section != null) bytes += section.estimateBytes();
+    }
+    return bytes;
+  }
+
+  /** O(1) copy-on-write copy with the same version; release() it once done. */
+  public ChunkData snapshot() {
+    return new ChunkData(this);
+  }
+
+  /**
+   * Drops this data's reference to every section, freeing the off-heap memory of those no snapshot
+   * shares. Call once the data is dropped; it must not be used afterwards.
+   */
+  public void release() {
+    for (int i = 0; i < SECTION_COUNT; i++) {
+      if (sections[i] != null) {
+        sections[i].release();
+        sections[i] = null;
+      }
+    }
+  }
+
+  public boolean contentEquals(ChunkData other) {
+    if (other == this) return true;
+    if (other == null) return false;
+    if (other.version == version) return true;
+
+    for (int i = 0; i < SECTION_COUNT; i++) {
+      ChunkSection a = sections[i];
+      ChunkSection b = other.sections[i];
+      if (a == b) continue;
+      if (a == null || b == null) {
+        if (a != b) return false;
+      } else if (!a.contentEquals(b)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -1,7 +1,6 @@
 package com.game.minecraft.world.chunks;
 
 import com.game.minecraft.utils.PersistStorage;
-import com.game.minecraft.world.Blocks;
 import com.game.minecraft.world.generations.ChunkTerrainGenerator;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -29,9 +28,9 @@ public class ChunkLoader implements Runnable {
 
   public static class ChunkLoadResult {
     final ChunkCoordinate coord;
-    final Blocks[][][] blockData;
+    final ChunkData blockData;
 
-    ChunkLoadResult(ChunkCoordinate coord, Blocks[][][] blockData) {
+    ChunkLoadResult(ChunkCoordinate coord, ChunkData blockData) {
       if (coord == null || blockData == null) {
         throw new IllegalArgumentException("Null arguments in load result");
       }
@@ -43,7 +42,7 @@ public class ChunkLoader implements Runnable {
       return coord;
     }
 
-    public Blocks[][][] getBlockData() {
+    public ChunkData getBlockData() {
       return blockData;
     }
   }
@@ -83,7 +82,7 @@ public class ChunkLoader implements Runnable {
           continue;
         }
 
-        Blocks[][][] data = PersistStorage.loadFromFile(request.coord);
+        ChunkData data = PersistStorage.loadFromFile(request.coord);
 
         if (data == null) {
           data = terrainGenerator.generateTerrainsAt(request.coord);
@@ -0,0 +1,166 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.utils.DirectIntArray;
+import com.game.minecraft.world.Vertex;
+import org.joml.Vector3f;
+
+/**
+ * Vertices of one render pass (opaque or water) of a chunk, one ChunkArena range per ChunkSection,
+ * so a re-meshed section is uploaded on its own. Ranges keep some slack; a section that outgrows
+ * its range, or shrinks to a quarter of it, moves to a new one and the others stay where they are.
+ * The chunk's ChunkArena draw slot, for its position, is packed into each vertex on upload.
+ * Vertices come 4 per quad and are drawn through the shared QuadIndexBuffer: draw() queues the
+ * non-empty ranges the caller asks for, for ChunkArena.drawQueued(). Each section also keeps the
+ * bounding box of its vertices, for culling. Render thread only.
+ */
+public class ChunkMesh {
+
+  // packed vertices, see Vertex
+  static final int INTS_PER_VERTEX = Vertex.INTS_PER_VERTEX;
+  private static final int SECTIONS = ChunkData.SECTION_COUNT;
+
+  // extra vertices a grown range gets, so a few more quads fit without moving
+  private static final int MIN_SLACK = Vertex.VERTICES_PER_QUAD * 16;
+
+  // per section, in vertices; first is the ChunkArena offset of a range of capacity vertices
+  private final int[] first = new int[SECTIONS];
+  private final int[] count = new int[SECTIONS];
+  private final int[] capacity = new int[SECTIONS];
+  // bounds of the vertices in block corners, packed like a vertex's first int
+  private final int[] boundsMin = new int[SECTIONS];
+  private final int[] boundsMax = new int[SECTIONS];
+  // bit s set = section s has vertices
+  private int sectionMask;
+  // union of the non-empty sections' bounds, packed the same way
+  private int meshMin;
+  private int meshMax;
+  private int vertexCount;
+
+  /**
+   * Replaces the vertices of the sections in dirtyMask. Section s's vertices are the ints
+   * [offsets[s], offsets[s + 1]) of vertices; other sections keep what they had. Packs the chunk's
+   * draw slot into the vertices in place; it may be ChunkArena.NO_SLOT when there are none.
+   */
+  void upload(int dirtyMask, DirectIntArray vertices, int[] offsets, int slot) {
+    int slotHigh = (slot >>> ChunkArena.SLOT_LOW_BITS) << ChunkArena.SLOT_HIGH_SHIFT;
+    int slotLow = slot << ChunkArena.SLOT_SHIFT;
+    for (int s = 0; s < SECTIONS; s++) {
+      if ((dirtyMask & (1 << s)) == 0) continue;
+      updateBounds(s, vertices, offsets);
+
+      int needed = vertexCountOf(s, offsets);
+      if (needed > capacity[s] || needed < capacity[s] / 4) {
+        if (capacity[s] > 0) ChunkArena.free(first[s], capacity[s]);
+        capacity[s] =
+            needed == 0 ? 0 : needed + Math.max(MIN_SLACK, needed / 16 * Vertex.VERTICES_PER_QUAD);
+        first[s] = capacity[s] == 0 ? 0 : ChunkArena.allocate(capacity[s]);
+      }
+      count[s] = needed;
+      if (needed > 0) {
+        for (int i = offsets[s]; i < offsets[s + 1]; i += INTS_PER_VERTEX) {
+          vertices.set(i, vertices.get(i) | slotHigh);
+          vertices.set(i + 1, vertices.get(i + 1) | slotLow);
+        }
+        ChunkArena.write(first[s], vertices.range(offsets[s], offsets[s + 1]));
+      }
+    }
+    updateDrawRanges();
+  }
+
+  private void updateBounds(int s, DirectIntArray vertices, int[] offsets) {
+    int minX = 31, minY = 511, minZ = 31;
+    int maxX = 0, maxY = 0, maxZ = 0;
+    for (int i = offsets[s]; i < offsets[s + 1]; i += INTS_PER_VERTEX) {
+      int corner = vertices.get(i);
+      int x = corner & 31;
+      int y = (corner >>> 5) & 511;
+      int z = (corner >>> 14) & 31;
+      minX = Math.min(minX, x);
+      minY = Math.min(minY, y);
+      minZ = Math.min(minZ, z);
+      maxX = Math.max(maxX, x);
+      maxY = Math.max(maxY, y);
+      maxZ = Math.max(maxZ, z);
+    }
+    boundsMin[s] = minX | minY << 5 | minZ << 14;
+    boundsMax[s] = maxX | maxY << 5 | maxZ << 14;
+  }
+
+  private static int vertexCountOf(int s, int[] offsets) {
+    return (offsets[s + 1] - offsets[s]) / INTS_PER_VERTEX;
+  }
+
+  private void updateDrawRanges() {
+    vertexCount = 0;
+    sectionMask = 0;
+    int minX = 31, minY = 511, minZ = 31;
+    int maxX = 0, maxY = 0, maxZ = 0;
+    for (int s = 0; s < SECTIONS; s++) {
+      if (count[s] == 0) continue;
+      vertexCount += count[s];
+      sectionMask |= 1 << s;
+      int lo = boundsMin[s];
+      int hi = boundsMax[s];
+      minX = Math.min(minX, lo & 31);
+      minY = Math.min(minY, (lo >>> 5) & 511);
+      minZ = Math.min(minZ, (lo >>> 14) & 31);
+      maxX = Math.max(maxX, hi & 31);
+      maxY = Math.max(maxY, (hi >>> 5) & 511);
+      maxZ = Math.max(maxZ, (hi >>> 14) & 31);
+    }
+    meshMin = minX | minY << 5 | minZ << 14;
+    meshMax = maxX | maxY << 5 | maxZ << 14;
+  }
+
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  /** Bit s set: section s has vertices. */
+  public int getSectionMask() {
+    return sectionMask;
+  }
+
+  /**
+   * Bounding box of section s's vertices in the chunk's model space, the space vertex.glsl adds the
+   * chunk's position to: y pointing up and blocks centered on whole coordinates. Only meaningful
+   * for sections in getSectionMask().
+   */
+  public void getSectionBounds(int s, Vector3f min, Vector3f max) {
+    unpackBounds(boundsMin[s], boundsMax[s], min, max);
+  }
+
+  /** Bounding box of all the vertices, in model space like getSectionBounds(). */
+  public void getBounds(Vector3f min, Vector3f max) {
+    unpackBounds(meshMin, meshMax, min, max);
+  }
+
+  private static void unpackBounds(int lo, int hi, Vector3f min, Vector3f max) {
+    // chunk y counts down, so the lowest corner y is the top of the box
+    min.set((lo & 31) - 0.5f, 0.5f - ((hi >>> 5) & 511), ((lo >>> 14) & 31) - 0.5f);
+    max.set((hi & 31) - 0.5f, 0.5f - ((lo >>> 5) & 511), ((hi >>> 14) & 31) - 0.5f);
+  }
+
+  /** Queues every non-empty section range. */
+  public void draw() {
+    draw(sectionMask);
+  }
+
+  /** Queues the non-empty ranges of the sections in the mask for ChunkArena.drawQueued(). */
+  public void draw(int sections) {
+    sections &= sectionMask;
+    for (; sections != 0; sections &= sections - 1) {
+      int s = Integer.numberOfTrailingZeros(sections);
+      ChunkArena.queueDraw(QuadIndexBuffer.indexCount(count[s]), first[s]);
+    }
+  }
+
+  /** Hands the ranges back to the ChunkArena; the next upload starts from scratch. */
+  void release() {
+    for (int s = 0; s < SECTIONS; s++) {
+      if (capacity[s] > 0) ChunkArena.free(first[s], capacity[s]);
+      first[s] = count[s] = capacity[s] = 0;
+    }
+    updateDrawRanges();
+  }
+}
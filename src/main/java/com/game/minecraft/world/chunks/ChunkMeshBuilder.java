@@ -0,0 +1,148 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.utils.DirectIntArray;
+import com.game.minecraft.world.Blocks;
+import com.game.minecraft.world.Vertex;
+import com.game.minecraft.world.Vertex.Face;
+
+/**
+ * Generates the vertices of a chunk's dirty sections from a ChunkNeighborhood; chunks at a lower
+ * level of detail are meshed from LodDownsampler copies. Holds scratch state, so each ChunkMesher
+ * worker has its own.
+ */
+final class ChunkMeshBuilder {
+
+  private static final Face[] FACES = Face.values();
+
+  private final FaceMasks faceMasks = new FaceMasks();
+  private final GreedyMesher greedyMesher = new GreedyMesher();
+  private final LodDownsampler lodDownsampler = new LodDownsampler();
+  private final SectionConnectivity sectionConnectivity = new SectionConnectivity();
+
+  /**
+   * Appends the sections in dirty to the vertex arrays and records where each section starts in the
+   * offsets (length SECTION_COUNT + 1, the last entry being the end). Clean sections get an empty
+   * range. Also records the SectionConnectivity of each dirty section and the chunk's
+   * OccluderSpans.
+   */
+  void build(
+      ChunkNeighborhood blocks,
+      int dirty,
+      boolean greedy,
+      DirectIntArray opaqueVertices,
+      int[] opaqueOffsets,
+      DirectIntArray waterVertices,
+      int[] waterOffsets,
+      long[] connectivity,
+      int[] occluderSpans) {
+    if (blocks.isFullDetail()) {
+      buildSections(
+          blocks,
+          dirty,
+          greedy,
+          opaqueVertices,
+          opaqueOffsets,
+          waterVertices,
+          waterOffsets,
+          connectivity,
+          occluderSpans);
+      return;
+    }
+    ChunkNeighborhood coarse = lodDownsampler.downsample(blocks);
+    try {
+      // coarse cells only pay off once merged; a full-detail chunk next to coarse ones keeps the
+      // greedy switch
+      buildSections(
+          coarse,
+          dirty,
+          greedy || blocks.lod() > 0,
+          opaqueVertices,
+          opaqueOffsets,
+          waterVertices,
+          waterOffsets,
+          connectivity,
+          occluderSpans);
+    } finally {
+      coarse.release();
+    }
+  }
+
+  private void buildSections(
+      ChunkNeighborhood blocks,
+      int dirty,
+      boolean greedy,
+      DirectIntArray opaqueVertices,
+      int[] opaqueOffsets,
+      DirectIntArray waterVertices,
+      int[] waterOffsets,
+      long[] connectivity,
+      int[] occluderSpans) {
+    ChunkData data = blocks.center();
+    OccluderSpans.compute(data, occluderSpans);
+
+    // nothing to mesh above the highest block of the chunk
+    int topY = data.getHeightmap(Heightmap.Type.NON_AIR).min();
+    for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+      opaqueOffsets[s] = opaqueVertices.size();
+      waterOffsets[s] = waterVertices.size();
+
+      if ((dirty & (1 << s)) == 0) continue;
+      ChunkSection section = data.getSection(s);
+      connectivity[s] = sectionConnectivity.compute(section);
+      if (section == null) continue;
+
+      int fromLocalY = Math.max(0, topY - s * ChunkSection.SIZE);
+      faceMasks.build(blocks, section, s);
+      if (greedy) {
+        greedyMesher.meshSection(faceMasks, section, s, fromLocalY, opaqueVertices, waterVertices);
+      } else {
+        meshFaces(section, s, fromLocalY, opaqueVertices, waterVertices);
+      }
+    }
+    opaqueOffsets[ChunkData.SECTION_COUNT] = opaqueVertices.size();
+    waterOffsets[ChunkData.SECTION_COUNT] = waterVertices.size();
+  }
+
+  /** One quad per visible face. */
+  private void meshFaces(
+      ChunkSection section,
+      int sectionIndex,
+      int fromLocalY,
+      DirectIntArray opaqueVertices,
+      DirectIntArray waterVertices) {
+    int baseY = sectionIndex * ChunkSection.SIZE;
+    for (Face face : FACES) {
+      for (int localY = fromLocalY; localY < ChunkSection.SIZE; localY++) {
+        for (int z = 0; z < Chunk.CHUNK_Z; z++) {
+          for (int row = faceMasks.opaque(face, localY, z); row != 0; row &= row - 1) {
+            int x = Integer.numberOfTrailingZeros(row);
+            addFace(opaqueVertices, face, x, baseY + localY, z, section.get(x, localY, z));
+          }
+          for (int row = faceMasks.water(face, localY, z); row != 0; row &= row - 1) {
+            int x = Integer.numberOfTrailingZeros(row);
+            addFace(waterVertices, face, x, baseY + localY, z, section.get(x, localY, z));
+          }
+        }
+      }
+    }
+  }
+
+  private static void addFace(
+      DirectIntArray vertices, Face face, int x, int y, int z, Blocks block) {
+    int tint = Chunk.tintOf(block);
+    switch (face) {
+      case TOP -> Vertex.addNormalTopFaceWithTexture(
+          vertices, x, y, z, block.getTopX(), block.getTopY(), tint);
+      case BOTTOM -> Vertex.addNormalBottomFaceWithTexture(
+          vertices, x, y, z, block.getBottomX(), block.getBottomY(), tint);
+      case FRONT -> Vertex.addNormalFrontFaceWithTexture(
+          vertices, x, y, z, block.getSideX(), block.getSideY(), tint);
+      case BACK -> Vertex.addNormalBackFaceWithTexture(
+          vertices, x, y, z, block.getSideX(), block.getSideY(), tint);
+      case LEFT -> Vertex.addNormalLeftFaceWithTexture(
+          vertices, x, y, z, block.getSideX(), block.getSideY(), tint);
+      case RIGHT -> Vertex.addNormalRightFaceWithTexture(
+          vertices, x, y, z, block.getSideX(), block.getSideY(), tint);
+    }
+  }
+}
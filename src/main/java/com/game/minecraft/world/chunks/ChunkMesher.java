@@ -0,0 +1,176 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.utils.DirectIntArray;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds chunk meshes on a pool of worker threads. The render thread schedules dirty chunks, which
+ * hands the workers a ChunkNeighborhood snapshot of the chunk and its neighbors, and later uploads
+ * the finished vertices; it never generates vertices itself. A chunk has at most one build in
+ * flight, so its uploads happen in order; sections dirtied meanwhile are picked up by the next one.
+ */
+public class ChunkMesher {
+
+  /**
+   * A build and its output. The vertex arrays are direct and kept across builds: results are
+   * pooled, so their storage is only allocated until it has grown to the largest chunk meshed.
+   */
+  static final class MeshResult {
+    final DirectIntArray opaqueVertices = new DirectIntArray(INITIAL_CAPACITY);
+    final int[] opaqueOffsets = new int[ChunkData.SECTION_COUNT + 1];
+    final DirectIntArray waterVertices = new DirectIntArray(INITIAL_CAPACITY);
+    final int[] waterOffsets = new int[ChunkData.SECTION_COUNT + 1];
+    // SectionConnectivity of the dirty sections
+    final long[] connectivity = new long[ChunkData.SECTION_COUNT];
+    // OccluderSpans of the whole chunk, whatever was dirty
+    final int[] occluderSpans = new int[OccluderSpans.TILES];
+
+    Chunk chunk;
+    int dirtySections;
+    ChunkNeighborhood blocks;
+    boolean greedy;
+    // set when the build failed; the chunk keeps its previous mesh and the sections are retried
+    // up to MAX_FAILED_BUILDS times
+    RuntimeException failure;
+  }
+
+  private static final int ALL_SECTIONS = (1 << ChunkData.SECTION_COUNT) - 1;
+
+  // a chunk whose builds fail this many times in a row keeps its last mesh instead of retrying
+  private static final int MAX_FAILED_BUILDS = 3;
+
+  // ints, enough for the vertices of most chunks
+  private static final int INITIAL_CAPACITY = 16 * 1024;
+
+  // one builder (and its scratch masks) per worker thread
+  private static final ThreadLocal<ChunkMeshBuilder> BUILDERS =
+      ThreadLocal.withInitial(ChunkMeshBuilder::new);
+
+  private final ExecutorService workers;
+  private final BlockingQueue<MeshResult> resultQueue = new LinkedBlockingQueue<>();
+  // touched by the render thread only
+  private final Set<Chunk> inFlight = new HashSet<>();
+  private final ArrayDeque<MeshResult> spareResults = new ArrayDeque<>();
+  private final int maxSpareResults;
+
+  /** Starts one worker per core but one, which is left to the render thread. */
+  public ChunkMesher() {
+    this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  }
+
+  public ChunkMesher(int threads) {
+    maxSpareResults = threads * 2;
+    AtomicInteger threadCount = new AtomicInteger();
+    workers =
+        Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+              Thread thread = new Thread(runnable, "ChunkMesher-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Queues a build of the chunk's dirty sections, unless it is clean or already being built. Call
+   * from the render thread.
+   */
+  public void schedule(Chunk chunk) {
+    if (!chunk.isDirty() || inFlight.contains(chunk)) return;
+
+    int dirty = chunk.takeDirtySections();
+    if (dirty == 0) return;
+    ChunkNeighborhood blocks = chunk.snapshotNeighborhood();
+    boolean greedy = Chunk.isGreedyMeshing();
+
+    MeshResult result = spareResults.isEmpty() ? new MeshResult() : spareResults.pop();
+    result.chunk = chunk;
+    result.dirtySections = dirty;
+    result.blocks = blocks;
+    result.greedy = greedy;
+
+    inFlight.add(chunk);
+    workers.execute(() -> resultQueue.add(build(result)));
+  }
+
+  private static MeshResult build(MeshResult result) {
+    result.failure = null;
+    try {
+      // only whole-chunk meshes are cached
+      boolean cached = MeshCache.ENABLED && result.dirtySections == ALL_SECTIONS;
+      ChunkCoordinate coord = cached ? result.chunk.getCoordinate() : null;
+      long key = cached ? MeshCache.key(result.blocks, result.greedy) : 0;
+      if (cached && MeshCache.load(coord, key, result)) {
+        return result;
+      }
+
+      result.opaqueVertices.clear();
+      result.waterVertices.clear();
+      BUILDERS
+          .get()
+          .build(
+              result.blocks,
+              result.dirtySections,
+              result.greedy,
+              result.opaqueVertices,
+              result.opaqueOffsets,
+              result.waterVertices,
+              result.waterOffsets,
+              result.connectivity,
+              result.occluderSpans);
+      if (cached) {
+        MeshCache.save(coord, key, result);
+      }
+    } catch (RuntimeException e) {
+      result.failure = e;
+    } finally {
+      result.blocks.release();
+      result.blocks = null;
+    }
+    return result;
+  }
+
+  /**
+   * Uploads up to max finished builds and returns how many it took. The sections of a failed build
+   * are marked dirty again for the next schedule(); once a chunk fails MAX_FAILED_BUILDS times in a
+   * row the failure is logged and the chunk keeps its last mesh. Call from the render thread.
+   */
+  public int uploadFinished(int max) {
+    int uploaded = 0;
+    MeshResult result;
+    while (uploaded < max && (result = resultQueue.poll()) != null) {
+      inFlight.remove(result.chunk);
+      if (result.failure == null) {
+        result.chunk.uploadMesh(result);
+      } else if (result.chunk.countFailedBuild() < MAX_FAILED_BUILDS) {
+        result.chunk.markSectionsDirty(result.dirtySections);
+      } else {
+        System.err.println("Failed to mesh chunk " + result.chunk.getCoordinate());
+        result.failure.printStackTrace();
+      }
+      result.chunk = null;
+      result.failure = null;
+      if (spareResults.size() < maxSpareResults) {
+        spareResults.push(result);
+      }
+      uploaded++;
+    }
+    return uploaded;
+  }
+
+  /** Number of chunks queued or being built. */
+  public int getPendingCount() {
+    return inFlight.size();
+  }
+
+  public void shutdown() {
+    workers.shutdownNow();
+  }
+}
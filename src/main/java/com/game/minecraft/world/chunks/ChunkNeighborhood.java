@@ -0,0 +1,124 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Blocks;
+
+/**
+ * Copy-on-write snapshot of a chunk's blocks and of its four neighbors' (null where a neighbor
+ * isn't loaded), so a chunk can be meshed off the render thread while the live data keeps changing.
+ * Coordinates are chunk-local and may reach one block into a side neighbor; diagonal neighbors
+ * aren't kept since no face looks at them. release() it once meshed.
+ *
+ * <p>Each chunk also comes with the level of detail it is meshed at (see Chunk.setLod()), so the
+ * center can be culled against what its neighbors actually draw.
+ */
+final class ChunkNeighborhood {
+
+  private final ChunkData center;
+  private final ChunkData front;
+  private final ChunkData back;
+  private final ChunkData left;
+  private final ChunkData right;
+
+  private final int lod;
+  private final int frontLod;
+  private final int backLod;
+  private final int leftLod;
+  private final int rightLod;
+
+  /** A neighborhood of chunks all meshed at full detail. */
+  ChunkNeighborhood(
+      ChunkData center, ChunkData front, ChunkData back, ChunkData left, ChunkData right) {
+    this(center, front, back, left, right, 0, 0, 0, 0, 0);
+  }
+
+  ChunkNeighborhood(
+      ChunkData center,
+      ChunkData front,
+      ChunkData back,
+      ChunkData left,
+      ChunkData right,
+      int lod,
+      int frontLod,
+      int backLod,
+      int leftLod,
+      int rightLod) {
+    this.center = center;
+    this.front = front;
+    this.back = back;
+    this.left = left;
+    this.right = right;
+    this.lod = lod;
+    this.frontLod = frontLod;
+    this.backLod = backLod;
+    this.leftLod = leftLod;
+    this.rightLod = rightLod;
+  }
+
+  ChunkData center() {
+    return center;
+  }
+
+  ChunkData front() {
+    return front;
+  }
+
+  ChunkData back() {
+    return back;
+  }
+
+  ChunkData left() {
+    return left;
+  }
+
+  ChunkData right() {
+    return right;
+  }
+
+  int lod() {
+    return lod;
+  }
+
+  int frontLod() {
+    return frontLod;
+  }
+
+  int backLod() {
+    return backLod;
+  }
+
+  int leftLod() {
+    return leftLod;
+  }
+
+  int rightLod() {
+    return rightLod;
+  }
+
+  /** True when the center and every neighbor are meshed at full detail. */
+  boolean isFullDetail() {
+    return (lod | frontLod | backLod | leftLod | rightLod) == 0;
+  }
+
+  Blocks get(int x, int y, int z) {
+    if (y < 0 || y >= Chunk.CHUNK_Y) return null; // theres no vertical neighbors
+
+    ChunkData data = center;
+    if (x < 0 || x >= Chunk.CHUNK_X) {
+      if (z < 0 || z >= Chunk.CHUNK_Z) return null;
+      data = x < 0 ? left : right;
+      x = Math.floorMod(x, Chunk.CHUNK_X);
+    } else if (z < 0 || z >= Chunk.CHUNK_Z) {
+      data = z < 0 ? back : front;
+      z = Math.floorMod(z, Chunk.CHUNK_Z);
+    }
+    return data == null ? null : data.get(x, y, z);
+  }
+
+  void release() {
+    center.release();
+    if (front != null) front.release();
+    if (back != null) back.release();
+    if (left != null) left.release();
+    if (right != null) right.release();
+  }
+}
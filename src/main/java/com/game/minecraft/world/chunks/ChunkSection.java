@@ -0,0 +1,150 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Blocks;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A 16x16x16 slice of a chunk column. Tracks how many of its cells are not air. Cells are kept in
+ * PalettedBlockStorage, or in OffHeapBlockStorage when started with -Dminecraft.offHeapChunks=true.
+ *
+ * <p>Sections are reference counted so ChunkData snapshots can share them. A shared section is
+ * never modified; ChunkData copies it before the first write.
+ */
+public class ChunkSection {
+
+  public static final int SIZE = 16;
+  public static final int VOLUME = SIZE * SIZE * SIZE;
+
+  public static final boolean OFF_HEAP = Boolean.getBoolean("minecraft.offHeapChunks");
+
+  private final BlockStorage blocks;
+  private int nonAirCount;
+  private final AtomicInteger refs = new AtomicInteger(1);
+  // contentHash() result, 0 until computed and again after a change
+  private volatile long contentHash;
+
+  public ChunkSection() {
+    blocks = OFF_HEAP ? new OffHeapBlockStorage() : new PalettedBlockStorage(VOLUME);
+    nonAirCount = 0;
+  }
+
+  /**
+   * All-air storage of VOLUME cells of the configured kind, for decoders. The palette is a hint of
+   * the blocks about to be written, so paletted storage does not repack while being filled.
+   */
+  public static BlockStorage newStorage(Blocks[] palette, int paletteSize) {
+    return OFF_HEAP
+        ? new OffHeapBlockStorage()
+        : PalettedBlockStorage.withPalette(VOLUME, palette, paletteSize);
+  }
+
+  /** Wraps already filled storage of VOLUME cells, e.g. from a decoder. */
+  public ChunkSection(BlockStorage blocks) {
+    this.blocks = blocks;
+    for (int i = 0; i < VOLUME; i++) {
+      if (blocks.get(i) != null) nonAirCount++;
+    }
+  }
+
+  private ChunkSection(ChunkSection other) {
+    blocks = other.blocks.copy();
+    nonAirCount = other.nonAirCount;
+    contentHash = other.contentHash;
+  }
+
+  /** Index of a cell within the section; layers of SIZE * SIZE are contiguous, top first. */
+  public static int index(int x, int localY, int z) {
+    return (localY * SIZE + x) * SIZE + z;
+  }
+
+  public Blocks get(int x, int localY, int z) {
+    return blocks.get(index(x, localY, z));
+  }
+
+  public void set(int x, int localY, int z, Blocks block) {
+    int index = index(x, localY, z);
+    Blocks old = blocks.get(index);
+    if (old == block) return;
+
+    if (old == null) nonAirCount++;
+    if (block == null) nonAirCount--;
+    blocks.set(index, block);
+    contentHash = 0;
+  }
+
+  /**
+   * 64-bit hash of the cells, equal for sections with equal contents whatever their storage. Kept
+   * until the next change, so hashing a shared (and so unchanging) section again is free.
+   */
+  public long contentHash() {
+    long hash = contentHash;
+    if (hash != 0) return hash;
+
+    int paletteSize = blocks.getPaletteSize();
+    long[] entryHashes = new long[paletteSize];
+    for (int i = 0; i < paletteSize; i++) {
+      Blocks block = blocks.getPaletteEntry(i);
+      entryHashes[i] = block == null ? 0 : block.ordinal() + 1;
+    }
+    for (int i = 0; i < VOLUME; i++) {
+      hash = (hash ^ entryHashes[blocks.getPaletteIndex(i)]) * 0x9E3779B97F4A7C15L;
+    }
+    hash ^= hash >>> 31;
+    contentHash = hash == 0 ? 1 : hash;
+    return contentHash;
+  }
+
+  public int getPaletteSize() {
+    return blocks.getPaletteSize();
+  }
+
+  public Blocks getPaletteEntry(int paletteIndex) {
+    return blocks.getPaletteEntry(paletteIndex);
+  }
+
+  /** Palette index at a flat cell index (see index()). */
+  public int getPaletteIndex(int index) {
+    return blocks.getPaletteIndex(index);
+  }
+
+  public boolean isEmpty() {
+    return nonAirCount == 0;
+  }
+
+  public int getNonAirCount() {
+    return nonAirCount;
+  }
+
+  /** Approximate footprint in bytes, for cache budgeting. */
+  public long estimateBytes() {
+    return 24 + blocks.estimateBytes();
+  }
+
+  public ChunkSection copy() {
+    return new ChunkSection(this);
+  }
+
+  public boolean contentEquals(ChunkSection other) {
+    return other != null && nonAirCount == other.nonAirCount && blocks.contentEquals(other.blocks);
+  }
+
+  /** Adds a reference, for a snapshot that shares this section. */
+  void retain() {
+    refs.incrementAndGet();
+  }
+
+  /** True while more than one ChunkData refers to the section. */
+  boolean isShared() {
+    return refs.get() > 1;
+  }
+
+  /**
+   * Drops a reference; the last one frees off-heap cells, if any. The caller must not use the
+   * section afterwards.
+   */
+  public void release() {
+    if (refs.decrementAndGet() == 0) {
+      blocks.release();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Blocks;
+import com.game.minecraft.world.Vertex.Face;
+
+/**
+ * Visible faces of one ChunkSection as bit rows. build() first records which cells are solid, water
+ * or meshed opaque in an occupancy grid padded by one block on every side (neighbor chunks' borders
+ * and the sections above and below included), one 18-bit row along x per (y, z). Each face
+ * direction is then a handful of shifts and masks per row: a block's face is visible when the
+ * neighbor row, shifted onto it, doesn't cover it. Same rules as the per-cell checks it replaces:
+ * opaque faces show unless the neighbor is solid (ores always show), water faces unless the
+ * neighbor is water.
+ */
+final class FaceMasks {
+
+  private static final int N = ChunkSection.SIZE;
+  private static final int P = N + 2; // padded width
+  private static final int ROW = (1 << N) - 1;
+  private static final int FACES = Face.values().length;
+
+  // padded occupancy, row per (py, pz) = (localY + 1, z + 1), bit x + 1
+  private final int[] solid = new int[P * P];
+  private final int[] water = new int[P * P];
+  private final int[] opaque = new int[P * P];
+  private final int[] ores = new int[P * P];
+
+  // visible faces, row per (face, localY, z), bit x
+  private final int[] opaqueFaces = new int[FACES * N * N];
+  private final int[] waterFaces = new int[FACES * N * N];
+
+  /** Computes the visible faces of the given section of blocks' center chunk. */
+  void build(ChunkNeighborhood blocks, ChunkSection section, int sectionIndex) {
+    fillOccupancy(blocks, section, sectionIndex);
+
+    for (int localY = 0; localY < N; localY++) {
+      for (int z = 0; z < N; z++) {
+        int i = (localY + 1) * P + z + 1;
+        int row = localY * N + z;
+
+        int ownOpaque = opaque[i];
+        int ownWater = water[i];
+        if ((ownOpaque | ownWater) == 0) {
+          for (int face = 0; face < FACES; face++) {
+            opaqueFaces[face * N * N + row] = 0;
+            waterFaces[face * N * N + row] = 0;
+          }
+          continue;
+        }
+
+        int ore = ores[i];
+        setFaces(Face.TOP, row, ownOpaque, ore, solid[i - P], ownWater, water[i - P]);
+        setFaces(Face.BOTTOM, row, ownOpaque, ore, solid[i + P], ownWater, water[i + P]);
+        setFaces(Face.FRONT, row, ownOpaque, ore, solid[i + 1], ownWater, water[i + 1]);
+        setFaces(Face.BACK, row, ownOpaque, ore, solid[i - 1], ownWater, water[i - 1]);
+        setFaces(Face.LEFT, row, ownOpaque, ore, solid[i] << 1, ownWater, water[i] << 1);
+        setFaces(Face.RIGHT, row, ownOpaque, ore, solid[i] >>> 1, ownWater, water[i] >>> 1);
+      }
+    }
+  }
+
+  private void setFaces(
+      Face face, int row, int ownOpaque, int ore, int solidNext, int ownWater, int waterNext) {
+    int index = face.ordinal() * N * N + row;
+    opaqueFaces[index] = ((ownOpaque & (~solidNext | ore)) >>> 1) & ROW;
+    waterFaces[index] = ((ownWater & ~waterNext) >>> 1) & ROW;
+  }
+
+  private void fillOccupancy(ChunkNeighborhood blocks, ChunkSection section, int sectionIndex) {
+    ChunkData center = blocks.center();
+    int baseY = sectionIndex * N;
+
+    for (int py = 0; py < P; py++) {
+      int localY = py - 1;
+      int y = baseY + localY;
+      ChunkSection rowSection;
+      if (localY >= 0 && localY < N) {
+        rowSection = section;
+      } else {
+        rowSection = y >= 0 && y < Chunk.CHUNK_Y ? center.getSection(y / N) : null;
+      }
+
+      for (int pz = 0; pz < P; pz++) {
+        int z = pz - 1;
+        int solidRow = 0, waterRow = 0, opaqueRow = 0, oreRow = 0;
+
+        for (int px = 0; px < P; px++) {
+          int x = px - 1;
+          Blocks block;
+          if (x >= 0 && x < N && z >= 0 && z < N) {
+            block = rowSection == null ? null : rowSection.get(x, Math.floorMod(y, N), z);
+          } else {
+            block = blocks.get(x, y, z);
+          }
+          if (block == null) continue;
+
+          int bit = 1 << px;
+          if (block == Blocks.WATER1) {
+            waterRow |= bit;
+          } else {
+            opaqueRow |= bit;
+            if (isOre(block)) oreRow |= bit;
+          }
+          if (block.isSolid()) solidRow |= bit;
+        }
+
+        int i = py * P + pz;
+        solid[i] = solidRow;
+        water[i] = waterRow;
+        opaque[i] = opaqueRow;
+        ores[i] = oreRow;
+      }
+    }
+  }
+
+  /** Bit x set: the face of block (x, localY, z) needs an opaque quad. */
+  int opaque(Face face, int localY, int z) {
+    return opaqueFaces[face.ordinal() * N * N + localY * N + z];
+  }
+
+  /** Bit x set: the face of block (x, localY, z) needs a water quad. */
+  int water(Face face, int localY, int z) {
+    return waterFaces[face.ordinal() * N * N + localY * N + z];
+  }
+
+  // ores show every face, for now
+  private static boolean isOre(Blocks block) {
+    return block == Blocks.IRON_ORE || block == Blocks.DIAMOND_ORE || block == Blocks.COAL_ORE;
+  }
+}
@@ -0,0 +1,157 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.utils.DirectIntArray;
+import com.game.minecraft.world.Blocks;
+import com.game.minecraft.world.Vertex;
+import com.game.minecraft.world.Vertex.Face;
+
+/**
+ * Meshes a chunk section with as few quads as possible. The section's visible faces (FaceMasks) are
+ * sorted into a 16x16 mask per slice of each face direction, keyed by block so texture and tint
+ * match, then equal entries are merged into rectangles, first along a row and then across rows.
+ */
+final class GreedyMesher {
+
+  private static final int N = ChunkSection.SIZE;
+  private static final Face[] FACES = Face.values();
+  private static final Blocks[] VALUES = Blocks.values();
+
+  // per slice of the current face: block ordinal + 1 per visible face, 0 for none; indexed
+  // slice * N * N + a + b * N. merge() clears what it consumes, so they're all 0 between faces.
+  private final int[] opaqueMasks = new int[N * N * N];
+  private final int[] waterMasks = new int[N * N * N];
+
+  /** Appends the section's faces below fromLocalY (rows above it are known to be air). */
+  void meshSection(
+      FaceMasks faces,
+      ChunkSection section,
+      int sectionIndex,
+      int fromLocalY,
+      DirectIntArray opaqueVertices,
+      DirectIntArray waterVertices) {
+    int baseY = sectionIndex * N;
+
+    for (Face face : FACES) {
+      int opaqueSlices = 0;
+      int waterSlices = 0;
+      for (int localY = fromLocalY; localY < N; localY++) {
+        for (int z = 0; z < N; z++) {
+          for (int row = faces.opaque(face, localY, z); row != 0; row &= row - 1) {
+            int x = Integer.numberOfTrailingZeros(row);
+            opaqueSlices |= put(opaqueMasks, face, x, localY, z, section.get(x, localY, z));
+          }
+          for (int row = faces.water(face, localY, z); row != 0; row &= row - 1) {
+            int x = Integer.numberOfTrailingZeros(row);
+            waterSlices |= put(waterMasks, face, x, localY, z, section.get(x, localY, z));
+          }
+        }
+      }
+
+      for (; opaqueSlices != 0; opaqueSlices &= opaqueSlices - 1) {
+        int slice = Integer.numberOfTrailingZeros(opaqueSlices);
+        merge(face, slice, baseY, opaqueMasks, slice * N * N, opaqueVertices);
+      }
+      for (; waterSlices != 0; waterSlices &= waterSlices - 1) {
+        int slice = Integer.numberOfTrailingZeros(waterSlices);
+        merge(face, slice, baseY, waterMasks, slice * N * N, waterVertices);
+      }
+    }
+  }
+
+  /** Records the face of block (x, localY, z) in its slice's mask; returns the slice's bit. */
+  private static int put(int[] masks, Face face, int x, int localY, int z, Blocks block) {
+    int slice, a, b;
+    switch (face) {
+      case TOP, BOTTOM -> {
+        slice = localY;
+        a = x;
+        b = z;
+      }
+      case FRONT, BACK -> {
+        slice = z;
+        a = x;
+        b = localY;
+      }
+      default -> {
+        slice = x;
+        a = z;
+        b = localY;
+      }
+    }
+    masks[slice * N * N + a + b * N] = block.ordinal() + 1;
+    return 1 << slice;
+  }
+
+  private static void merge(
+      Face face, int slice, int baseY, int[] mask, int offset, DirectIntArray vertices) {
+    for (int b = 0; b < N; b++) {
+      for (int a = 0; a < N; ) {
+        int key = mask[offset + a + b * N];
+        if (key == 0) {
+          a++;
+          continue;
+        }
+
+        int w = 1;
+        while (a + w < N && mask[offset + a + w + b * N] == key) w++;
+
+        int h = 1;
+        grow:
+        while (b + h < N) {
+          for (int k = 0; k < w; k++) {
+            if (mask[offset + a + k + (b + h) * N] != key) break grow;
+          }
+          h++;
+        }
+
+        for (int j = 0; j < h; j++) {
+          for (int k = 0; k < w; k++) {
+            mask[offset + a + k + (b + j) * N] = 0;
+          }
+        }
+
+        Blocks block = VALUES[key - 1];
+        int x = cellX(face, slice, a);
+        int y = baseY + cellY(face, slice, b);
+        int z = cellZ(face, slice, a, b);
+        int tileU;
+        int tileV;
+        if (face == Face.TOP) {
+          tileU = block.getTopX();
+          tileV = block.getTopY();
+        } else if (face == Face.BOTTOM) {
+          tileU = block.getBottomX();
+          tileV = block.getBottomY();
+        } else {
+          tileU = block.getSideX();
+          tileV = block.getSideY();
+        }
+        Vertex.addQuad(vertices, face, x, y, z, w, h, tileU, tileV, Chunk.tintOf(block));
+
+        a += w;
+      }
+    }
+  }
+
+  // Slice/row/column to cell: top and bottom faces lie in a y slice spanning x (a) by z (b); front
+  // and back in a z slice spanning x by y; left and right in an x slice spanning z by y.
+
+  private static int cellX(Face face, int slice, int a) {
+    return switch (face) {
+      case TOP, BOTTOM, FRONT, BACK -> a;
+      case LEFT, RIGHT -> slice;
+    };
+  }
+
+  private static int cellY(Face face, int slice, int b) {
+    return face == Face.TOP || face == Face.BOTTOM ? slice : b;
+  }
+
+  private static int cellZ(Face face, int slice, int a, int b) {
+    return switch (face) {
+      case TOP, BOTTOM -> b;
+      case FRONT, BACK -> slice;
+      case LEFT, RIGHT -> a;
+    };
+  }
+}
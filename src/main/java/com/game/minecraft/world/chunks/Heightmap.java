@@ -0,0 +1,74 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Blocks;
+import java.util.Arrays;
+
+/**
+ * Per-column y of the topmost block of one kind. y=0 is the top of the chunk, so the topmost block
+ * is the one with the smallest y. Columns without such a block hold NONE.
+ */
+public class Heightmap {
+
+  public enum Type {
+    SOLID,
+    NON_AIR,
+    WATER;
+
+    public boolean matches(Blocks block) {
+      return switch (this) {
+        case SOLID -> block != null && block.isSolid();
+        case NON_AIR -> block != null;
+        case WATER -> block == Blocks.WATER1;
+      };
+    }
+  }
+
+  public static final int NONE = Chunk.CHUNK_Y;
+
+  private final Type type;
+  private final short[] heights = new short[Chunk.CHUNK_X * Chunk.CHUNK_Z];
+
+  Heightmap(Type type) {
+    this.type = type;
+    Arrays.fill(heights, (short) NONE);
+  }
+
+  Heightmap(Heightmap other) {
+    this.type = other.type;
+    System.arraycopy(other.heights, 0, heights, 0, heights.length);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public int get(int x, int z) {
+    return heights[x * Chunk.CHUNK_Z + z];
+  }
+
+  void set(int x, int z, int y) {
+    heights[x * Chunk.CHUNK_Z + z] = (short) y;
+  }
+
+  /** Lowest y (i.e. highest point) over all columns, or NONE. */
+  public int min() {
+    int min = NONE;
+    for (short h : heights) {
+      min = Math.min(min, h);
+    }
+    return min;
+  }
+
+  /**
+   * Keeps the column current after (x, y, z) changed to block. Only removing the current top block
+   * requires a scan down the column, which skips empty sections.
+   */
+  void update(ChunkData data, int x, int y, int z, Blocks block) {
+    int top = get(x, z);
+    if (type.matches(block)) {
+      if (y < top) set(x, z, y);
+    } else if (y == top) {
+      set(x, z, data.findTop(type, x, y + 1, z));
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Blocks;
+
+/**
+ * Coarse copies of chunk blocks for meshing distant chunks. At level of detail l the blocks are
+ * grouped into cells of s = 2^l blocks a side (cells never straddle sections, as s divides the
+ * section size), and every block of a cell is replaced by one block: the most common one of the
+ * cell's topmost non-air layer when at least half the cell is solid, water when solid and water
+ * together fill half of it, and air otherwise. The copies keep block resolution, so the regular
+ * meshers and vertex format apply unchanged; the greedy mesher turns each coarse face into a single
+ * quad.
+ *
+ * <p>Each neighbor is downsampled at its own level, and only in the cells bordering the center: the
+ * center's faces are culled against exactly what the neighbors draw, so chunks of different levels
+ * meet without holes. Holds scratch state, so each ChunkMeshBuilder has its own.
+ */
+final class LodDownsampler {
+
+  private static final int N = ChunkSection.SIZE;
+  private static final Blocks[] VALUES = Blocks.values();
+
+  // per block ordinal, counts of the layer being looked at
+  private final int[] counts = new int[VALUES.length];
+
+  /**
+   * Returns a neighborhood holding coarse copies of the chunks meshed at a lower detail, and
+   * snapshots of those at full detail. release() it separately from blocks.
+   */
+  ChunkNeighborhood downsample(ChunkNeighborhood blocks) {
+    int edge = N - 1;
+    return new ChunkNeighborhood(
+        downsample(blocks.center(), blocks.lod(), 0, edge, 0, edge),
+        downsample(blocks.front(), blocks.frontLod(), 0, edge, 0, 0),
+        downsample(blocks.back(), blocks.backLod(), 0, edge, edge, edge),
+        downsample(blocks.left(), blocks.leftLod(), edge, edge, 0, edge),
+        downsample(blocks.right(), blocks.rightLod(), 0, 0, 0, edge),
+        blocks.lod(),
+        blocks.frontLod(),
+        blocks.backLod(),
+        blocks.leftLod(),
+        blocks.rightLod());
+  }
+
+  /**
+   * Coarse copy of the cells of data covering the columns [fromX, toX] by [fromZ, toZ]; the other
+   * columns are left as air. Heightmaps are rebuilt only for a whole copy.
+   */
+  private ChunkData downsample(ChunkData data, int lod, int fromX, int toX, int fromZ, int toZ) {
+    if (data == null) return null;
+    if (lod == 0) return data.snapshot();
+
+    int s = 1 << lod;
+    ChunkData coarse = new ChunkData();
+    for (int i = 0; i < ChunkData.SECTION_COUNT; i++) {
+      ChunkSection section = data.getSection(i);
+      if (section == null) continue;
+
+      // air first, as unfilled cells stay at palette index 0
+      Blocks[] palette = new Blocks[section.getPaletteSize() + 1];
+      int paletteSize = 1;
+      for (int p = 0; p < section.getPaletteSize(); p++) {
+        Blocks entry = section.getPaletteEntry(p);
+        if (entry != null) palette[paletteSize++] = entry;
+      }
+      BlockStorage cells = ChunkSection.newStorage(palette, paletteSize);
+      for (int y = 0; y < N; y += s) {
+        for (int x = fromX / s * s; x <= toX; x += s) {
+          for (int z = fromZ / s * s; z <= toZ; z += s) {
+            Blocks block = sampleCell(section, x, y, z, s);
+            if (block == null) continue;
+            for (int dy = 0; dy < s; dy++) {
+              for (int dx = 0; dx < s; dx++) {
+                int from = ChunkSection.index(x + dx, y + dy, z);
+                cells.fill(from, from + s, block);
+              }
+            }
+          }
+        }
+      }
+      coarse.setSection(i, new ChunkSection(cells));
+    }
+    if (fromX == 0 && toX == N - 1 && fromZ == 0 && toZ == N - 1) {
+      coarse.rebuildHeightmaps();
+    }
+    return coarse;
+  }
+
+  /** The block standing in for the cell of s blocks a side at (x, localY, z). */
+  private Blocks sampleCell(ChunkSection section, int x, int localY, int z, int s) {
+    int solid = 0;
+    int water = 0;
+    Blocks top = null;
+    // chunk y counts down, so the first layer is the top one
+    for (int dy = 0; dy < s; dy++) {
+      boolean counting = top == null;
+      for (int dx = 0; dx < s; dx++) {
+        for (int dz = 0; dz < s; dz++) {
+          Blocks block = section.get(x + dx, localY + dy, z + dz);
+          if (block == null) continue;
+          if (block == Blocks.WATER1) {
+            water++;
+          } else {
+            solid++;
+            if (counting) counts[block.ordinal()]++;
+          }
+        }
+      }
+      if (counting && solid > 0) top = takeMostCommon();
+    }
+
+    int volume = s * s * s;
+    if (solid * 2 >= volume) return top;
+    if ((solid + water) * 2 >= volume) return Blocks.WATER1;
+    return null;
+  }
+
+  // most counted block, clearing the counts
+  private Blocks takeMostCommon() {
+    Blocks best = null;
+    int bestCount = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > bestCount) {
+        best = VALUES[i];
+        bestCount = counts[i];
+      }
+      counts[i] = 0;
+    }
+    return best;
+  }
+}
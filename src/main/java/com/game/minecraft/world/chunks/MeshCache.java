@@ -0,0 +1,143 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.utils.DirectIntArray;
+import com.game.minecraft.utils.PersistStorage;
+import com.game.minecraft.world.Blocks;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps the last full mesh of every chunk on disk (through PersistStorage), so a chunk that comes
+ * back with the same blocks skips meshing and goes straight to the GPU. An entry is keyed by a hash
+ * of everything the mesh depends on: the chunk's blocks, the facing border of each neighbor, the
+ * levels of detail and the mesher used. One entry per chunk; a different key just means the entry
+ * is stale. Disable with -Dminecraft.meshCache=false.
+ */
+final class MeshCache {
+
+  static final boolean ENABLED =
+      Boolean.parseBoolean(System.getProperty("minecraft.meshCache", "true"));
+
+  // bump when the vertex format or the meshers' output changes
+  private static final int FORMAT = 3;
+  private static final int MAGIC = 0x4d534800 | FORMAT; // "MSH" and the format
+  private static final int OFFSETS = ChunkData.SECTION_COUNT + 1;
+  private static final long MIX = 0x9E3779B97F4A7C15L;
+
+  private MeshCache() {}
+
+  /** Hash of the blocks a mesh of the neighborhood's center chunk depends on. */
+  static long key(ChunkNeighborhood blocks, boolean greedy) {
+    long hash = greedy ? 1 : 2;
+    hash = mix(hash, blocks.lod());
+    hash = mix(hash, blocks.frontLod());
+    hash = mix(hash, blocks.backLod());
+    hash = mix(hash, blocks.leftLod());
+    hash = mix(hash, blocks.rightLod());
+
+    ChunkData center = blocks.center();
+    for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+      ChunkSection section = center.getSection(s);
+      hash = mix(hash, section == null ? -1 : section.contentHash());
+    }
+
+    // the neighbors' cells touching this chunk, as deep as one of their cells; absent neighbors
+    // read as air, as when meshing
+    int leftDepth = 1 << blocks.leftLod();
+    int rightDepth = 1 << blocks.rightLod();
+    int backDepth = 1 << blocks.backLod();
+    int frontDepth = 1 << blocks.frontLod();
+    for (int y = 0; y < Chunk.CHUNK_Y; y++) {
+      for (int i = 0; i < Chunk.CHUNK_X; i++) {
+        for (int d = 0; d < leftDepth; d++) {
+          hash = mix(hash, id(blocks.get(-1 - d, y, i)));
+        }
+        for (int d = 0; d < rightDepth; d++) {
+          hash = mix(hash, id(blocks.get(Chunk.CHUNK_X + d, y, i)));
+        }
+        for (int d = 0; d < backDepth; d++) {
+          hash = mix(hash, id(blocks.get(i, y, -1 - d)));
+        }
+        for (int d = 0; d < frontDepth; d++) {
+          hash = mix(hash, id(blocks.get(i, y, Chunk.CHUNK_Z + d)));
+        }
+      }
+    }
+    return hash ^ (hash >>> 31);
+  }
+
+  private static int id(Blocks block) {
+    return block == null ? 0 : block.ordinal() + 1;
+  }
+
+  private static long mix(long hash, long value) {
+    return (hash ^ value) * MIX;
+  }
+
+  /**
+   * Fills result's vertex arrays, offsets, section connectivity and occluder spans with the stored
+   * mesh of the chunk, if there is one with this key. Returns whether it did.
+   */
+  static boolean load(ChunkCoordinate coord, long key, ChunkMesher.MeshResult result) {
+    byte[] bytes = PersistStorage.loadMesh(coord);
+    if (bytes == null || bytes.length < Integer.BYTES + Long.BYTES) return false;
+
+    ByteBuffer in = ByteBuffer.wrap(bytes);
+    if (in.getInt() != MAGIC || in.getLong() != key) return false;
+
+    try {
+      for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+        result.connectivity[s] = in.getLong();
+      }
+      for (int t = 0; t < OccluderSpans.TILES; t++) {
+        result.occluderSpans[t] = in.getInt();
+      }
+      read(in, result.opaqueOffsets, result.opaqueVertices);
+      read(in, result.waterOffsets, result.waterVertices);
+      return true;
+    } catch (BufferUnderflowException e) {
+      return false; // truncated entry; it gets rebuilt and overwritten
+    }
+  }
+
+  /** Stores a full mesh of the chunk under the key, replacing what was there. */
+  static void save(ChunkCoordinate coord, long key, ChunkMesher.MeshResult result) {
+    int ints =
+        OccluderSpans.TILES
+            + 2 * OFFSETS
+            + result.opaqueVertices.size()
+            + result.waterVertices.size();
+    int longs = 1 + ChunkData.SECTION_COUNT;
+    ByteBuffer out = ByteBuffer.allocate(Integer.BYTES + longs * Long.BYTES + ints * Integer.BYTES);
+    out.putInt(MAGIC).putLong(key);
+    for (long sectionConnectivity : result.connectivity) {
+      out.putLong(sectionConnectivity);
+    }
+    for (int span : result.occluderSpans) {
+      out.putInt(span);
+    }
+    write(out, result.opaqueOffsets, result.opaqueVertices);
+    write(out, result.waterOffsets, result.waterVertices);
+    PersistStorage.saveMeshAsync(coord, out.array());
+  }
+
+  // offsets, then the vertices; the last offset is the vertex count
+  private static void write(ByteBuffer out, int[] offsets, DirectIntArray vertices) {
+    for (int offset : offsets) {
+      out.putInt(offset);
+    }
+    for (int i = 0; i < vertices.size(); i++) {
+      out.putInt(vertices.get(i));
+    }
+  }
+
+  private static void read(ByteBuffer in, int[] offsets, DirectIntArray vertices) {
+    for (int s = 0; s < OFFSETS; s++) {
+      offsets[s] = in.getInt();
+    }
+    vertices.clear();
+    for (int i = 0; i < offsets[OFFSETS - 1]; i++) {
+      vertices.add(in.getInt());
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.game.minecraft.world.chunks;
+
+import org.joml.Vector3f;
+
+/**
+ * Boxes known to be solid all through, one per tile of TILE by TILE columns of a chunk, for
+ * occlusion tests. Vertically a tile's box spans the cells every one of its columns has solid: from
+ * the lowest of their SOLID heightmap tops down to the first non-solid cell under any of them, so a
+ * cave or overhang below the surface only shortens it, and at most MAX_DEPTH: the deep part of a
+ * box lies behind the tops of nearer ones and would only cost rasterization time. Computed along
+ * with the mesh (from the coarse copy for distant chunks), so the boxes always lie inside what is
+ * drawn.
+ *
+ * <p>A span is packed as top | bottom << 9 in chunk y, covering [top, bottom); EMPTY and any span
+ * with bottom <= top hold nothing.
+ */
+public final class OccluderSpans {
+
+  public static final int TILE = 4;
+  public static final int TILES = (Chunk.CHUNK_X / TILE) * (Chunk.CHUNK_Z / TILE);
+  public static final int EMPTY = 0;
+  public static final int MAX_DEPTH = 16;
+
+  private static final int TILES_Z = Chunk.CHUNK_Z / TILE;
+
+  private OccluderSpans() {}
+
+  /** Fills spans (TILES long) with the solid span of each tile of data. */
+  public static void compute(ChunkData data, int[] spans) {
+    for (int tile = 0; tile < TILES; tile++) {
+      int fromX = tile / TILES_Z * TILE;
+      int fromZ = tile % TILES_Z * TILE;
+      int top = 0;
+      int bottom = Chunk.CHUNK_Y;
+      for (int x = fromX; x < fromX + TILE && top < bottom; x++) {
+        for (int z = fromZ; z < fromZ + TILE && top < bottom; z++) {
+          int columnTop = data.getHeight(Heightmap.Type.SOLID, x, z);
+          top = Math.max(top, columnTop);
+          bottom = Math.min(bottom, top + MAX_DEPTH);
+          bottom = Math.min(bottom, solidBelow(data, x, columnTop, z, bottom));
+        }
+      }
+      spans[tile] = top < bottom ? top | bottom << 9 : EMPTY;
+    }
+  }
+
+  // first y >= fromY (up to limit) in the column that isn't solid
+  private static int solidBelow(ChunkData data, int x, int fromY, int z, int limit) {
+    int y = fromY;
+    while (y < limit && Heightmap.Type.SOLID.matches(data.get(x, y, z))) {
+      y++;
+    }
+    return y;
+  }
+
+  /**
+   * World-space box of a tile's span, for a chunk at the given position (its getXCoord() and so
+   * on). Returns false, leaving min and max alone, when the span is empty.
+   */
+  public static boolean getBounds(
+      int span, int tile, float chunkX, float chunkY, float chunkZ, Vector3f min, Vector3f max) {
+    int top = span & 511;
+    int bottom = span >>> 9;
+    if (bottom <= top) return false;
+
+    // blocks are centered on whole coordinates and chunk y counts down
+    float x = chunkX + tile / TILES_Z * TILE - 0.5f;
+    float z = chunkZ + tile % TILES_Z * TILE - 0.5f;
+    min.set(x, chunkY + 0.5f - bottom, z);
+    max.set(x + TILE, chunkY + 0.5f - top, z + TILE);
+    return true;
+  }
+}
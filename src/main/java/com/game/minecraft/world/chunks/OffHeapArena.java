@@ -0,0 +1,88 @@
+package com.game.minecraft.world.chunks;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Slab allocator for fixed-size blocks of direct memory. Slabs are allocated on demand and never
+ * given back; freed slots go on a free list and are handed out again, zeroed, by the next
+ * allocate(). Since the memory stays mapped, a slot read after it was freed returns stale bytes
+ * rather than crashing.
+ */
+public class OffHeapArena {
+
+  /** Arena of ChunkSection.VOLUME-byte slots used by OffHeapBlockStorage. */
+  public static final OffHeapArena SECTIONS = new OffHeapArena(ChunkSection.VOLUME, 256);
+
+  private final int slotSize;
+  private final int slotsPerSlab;
+  private final List<ByteBuffer> slabs = new ArrayList<>();
+  private int[] freeSlots = new int[64];
+  private int freeCount;
+  private int used;
+
+  public OffHeapArena(int slotSize, int slotsPerSlab) {
+    this.slotSize = slotSize;
+    this.slotsPerSlab = slotsPerSlab;
+  }
+
+  /** Returns the id of a zeroed slot, growing the arena by one slab if none is free. */
+  public synchronized int allocate() {
+    if (freeCount == 0) {
+      addSlab();
+    }
+    int slot = freeSlots[--freeCount];
+    used++;
+
+    ByteBuffer buffer = slabs.get(slot / slotsPerSlab);
+    int offset = (slot % slotsPerSlab) * slotSize;
+    for (int i = 0; i < slotSize; i += 8) {
+      buffer.putLong(offset + i, 0L);
+    }
+    return slot;
+  }
+
+  public synchronized void free(int slot) {
+    if (freeCount == freeSlots.length) {
+      int[] grown = new int[freeSlots.length * 2];
+      System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+      freeSlots = grown;
+    }
+    freeSlots[freeCount++] = slot;
+    used--;
+  }
+
+  /** A view of exactly the slot's bytes, positioned at 0. */
+  public synchronized ByteBuffer slice(int slot) {
+    return slabs.get(slot / slotsPerSlab).slice((slot % slotsPerSlab) * slotSize, slotSize);
+  }
+
+  public int getSlotSize() {
+    return slotSize;
+  }
+
+  public synchronized int getUsedSlots() {
+    return used;
+  }
+
+  /** Direct memory reserved by the arena, used or not. */
+  public synchronized long getReservedBytes() {
+    return (long) slabs.size() * slotsPerSlab * slotSize;
+  }
+
+  private void addSlab() {
+    int base = slabs.size() * slotsPerSlab;
+    slabs.add(ByteBuffer.allocateDirect(slotsPerSlab * slotSize));
+
+    if (freeSlots.length < slotsPerSlab) {
+      int[] grown = new int[slotsPerSlab];
+      System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+      freeSlots = grown;
+    }
+    // hand out low slots first
+    for (int i = slotsPerSlab - 1; i >= 0; i--) {
+      freeSlots[freeCount++] = base + i;
+    }
+  }
+}
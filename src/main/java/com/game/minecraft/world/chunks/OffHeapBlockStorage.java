@@ -0,0 +1,116 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Blocks;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+
+/**
+ * BlockStorage holding one byte per cell (0 for air, ordinal + 1 otherwise) in a slot of
+ * OffHeapArena.SECTIONS, so the cells do not live on the Java heap. Its palette is every block id,
+ * which is also how ChunkCodec writes palette entries, so cells encode and decode without
+ * translation.
+ *
+ * <p>release() hands the slot back to the arena and should be called when the owning ChunkData is
+ * dropped; storage that is garbage collected without it is released by a Cleaner instead.
+ */
+public class OffHeapBlockStorage implements BlockStorage {
+
+  private static final Blocks[] VALUES = Blocks.values();
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final OffHeapArena arena;
+  private final ByteBuffer cells;
+  private final Cleaner.Cleanable cleanable;
+
+  /** All-air storage of ChunkSection.VOLUME cells. */
+  public OffHeapBlockStorage() {
+    arena = OffHeapArena.SECTIONS;
+    int slot = arena.allocate();
+    cells = arena.slice(slot);
+    cleanable = CLEANER.register(this, new Release(arena, slot));
+  }
+
+  private static final class Release implements Runnable {
+    private final OffHeapArena arena;
+    private final int slot;
+
+    Release(OffHeapArena arena, int slot) {
+      this.arena = arena;
+      this.slot = slot;
+    }
+
+    @Override
+    public void run() {
+      arena.free(slot);
+    }
+  }
+
+  @Override
+  public int size() {
+    return ChunkSection.VOLUME;
+  }
+
+  @Override
+  public Blocks get(int index) {
+    int id = cells.get(index) & 0xFF;
+    return id == 0 ? null : VALUES[id - 1];
+  }
+
+  @Override
+  public void set(int index, Blocks block) {
+    cells.put(index, (byte) (block == null ? 0 : block.ordinal() + 1));
+  }
+
+  @Override
+  public void fill(int from, int to, Blocks block) {
+    byte id = (byte) (block == null ? 0 : block.ordinal() + 1);
+    for (int i = from; i < to; i++) {
+      cells.put(i, id);
+    }
+  }
+
+  @Override
+  public int getPaletteSize() {
+    return VALUES.length + 1;
+  }
+
+  @Override
+  public Blocks getPaletteEntry(int paletteIndex) {
+    return paletteIndex == 0 ? null : VALUES[paletteIndex - 1];
+  }
+
+  @Override
+  public int getPaletteIndex(int index) {
+    return cells.get(index) & 0xFF;
+  }
+
+  @Override
+  public long estimateBytes() {
+    return 96 + ChunkSection.VOLUME;
+  }
+
+  @Override
+  public OffHeapBlockStorage copy() {
+    OffHeapBlockStorage copy = new OffHeapBlockStorage();
+    copy.cells.put(0, cells, 0, ChunkSection.VOLUME);
+    return copy;
+  }
+
+  @Override
+  public boolean contentEquals(BlockStorage storage) {
+    if (storage == this) return true;
+    if (storage == null || storage.size() != ChunkSection.VOLUME) return false;
+    if (storage instanceof OffHeapBlockStorage other) {
+      return cells.equals(other.cells);
+    }
+    for (int i = 0; i < ChunkSection.VOLUME; i++) {
+      if (get(i) != storage.get(i)) return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void release() {
+    cleanable.clean();
+  }
+}
@@ -0,0 +1,222 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Blocks;
+import java.util.Arrays;
+
+/**
+ * Flat block storage. Keeps a small palette of the distinct Blocks it holds (null = air) and
+ * bit-packs one palette index per cell into a long[]. Storage holding a single value keeps no index
+ * array at all. Indices widen 0 -> 1 -> 2 -> 4 -> 8 bits as the palette grows, so an index never
+ * straddles two longs.
+ */
+public class PalettedBlockStorage implements BlockStorage {
+
+  private static final Blocks[] VALUES = Blocks.values();
+  // every Blocks value plus air
+  private static final int MAX_PALETTE_SIZE = VALUES.length + 1;
+
+  /**
+   * Palette and packed indices for one bit width. Swapped as a whole on resize so a reader on
+   * another thread never pairs a new bit width with an old index array.
+   */
+  private static final class Data {
+    final int bits;
+    final long mask;
+    final int wordShift; // log2(indices per long)
+    final long[] words;
+    final Blocks[] palette;
+    final byte[] lookup; // (ordinal + 1) -> palette index, -1 if absent
+    int paletteSize;
+
+    Data(int bits, int size) {
+      this.bits = bits;
+      this.mask = (1L << bits) - 1;
+      this.wordShift = bits == 0 ? 0 : 6 - Integer.numberOfTrailingZeros(bits);
+      this.words = bits == 0 ? null : new long[(size + (1 << wordShift) - 1) >>> wordShift];
+      this.palette = new Blocks[Math.min(1 << bits, MAX_PALETTE_SIZE)];
+      this.lookup = new byte[MAX_PALETTE_SIZE];
+      Arrays.fill(lookup, (byte) -1);
+    }
+
+    Data(Data other) {
+      this.bits = other.bits;
+      this.mask = other.mask;
+      this.wordShift = other.wordShift;
+      this.words = other.words == null ? null : other.words.clone();
+      this.palette = other.palette.clone();
+      this.lookup = other.lookup.clone();
+      this.paletteSize = other.paletteSize;
+    }
+
+    int indexOf(Blocks block) {
+      return lookup[block == null ? 0 : block.ordinal() + 1];
+    }
+
+    int add(Blocks block) {
+      int id = paletteSize;
+      palette[id] = block;
+      lookup[block == null ? 0 : block.ordinal() + 1] = (byte) id;
+      paletteSize++;
+      return id;
+    }
+
+    int read(int index) {
+      if (bits == 0) return 0;
+      int shift = (index & ((1 << wordShift) - 1)) * bits;
+      return (int) ((words[index >>> wordShift] >>> shift) & mask);
+    }
+
+    void write(int index, int id) {
+      int wordIndex = index >>> wordShift;
+      int shift = (index & ((1 << wordShift) - 1)) * bits;
+      words[wordIndex] = (words[wordIndex] & ~(mask << shift)) | ((long) id << shift);
+    }
+  }
+
+  private final int size;
+  private volatile Data data;
+
+  /** Creates storage of the given number of cells, all air. */
+  public PalettedBlockStorage(int size) {
+    this.size = size;
+    this.data = new Data(0, size);
+    this.data.add(null);
+  }
+
+  /**
+   * Creates storage whose palette already holds the given entries, with every cell at palette index
+   * 0. Lets decoders fill() cells without the palette growing (and repacking) along the way.
+   */
+  public static PalettedBlockStorage withPalette(int size, Blocks[] palette, int paletteSize) {
+    int bits = 0;
+    while ((1 << bits) < paletteSize) {
+      bits = bits == 0 ? 1 : bits * 2;
+    }
+
+    PalettedBlockStorage storage = new PalettedBlockStorage(size);
+    Data d = new Data(bits, size);
+    for (int i = 0; i < paletteSize; i++) {
+      d.add(palette[i]);
+    }
+    storage.data = d;
+    return storage;
+  }
+
+  private PalettedBlockStorage(PalettedBlockStorage other) {
+    this.size = other.size;
+    this.data = new Data(other.data);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /** Number of bits used per cell index; 0 when every cell holds the same block. */
+  public int getBitsPerIndex() {
+    return data.bits;
+  }
+
+  @Override
+  public int getPaletteSize() {
+    return data.paletteSize;
+  }
+
+  @Override
+  public Blocks getPaletteEntry(int paletteIndex) {
+    return data.palette[paletteIndex];
+  }
+
+  @Override
+  public int getPaletteIndex(int index) {
+    return data.read(index);
+  }
+
+  @Override
+  public void fill(int from, int to, Blocks block) {
+    if (from >= to) return;
+    set(from, block);
+
+    Data d = data;
+    if (d.bits == 0) return;
+    int id = d.indexOf(block);
+    for (int i = from + 1; i < to; i++) {
+      d.write(i, id);
+    }
+  }
+
+  @Override
+  public Blocks get(int index) {
+    Data d = data;
+    return d.palette[d.read(index)];
+  }
+
+  @Override
+  public void set(int index, Blocks block) {
+    Data d = data;
+    int id = d.indexOf(block);
+    if (id < 0) {
+      if (d.paletteSize == d.palette.length) {
+        d = grow(d);
+      }
+      id = d.add(block);
+    }
+    if (d.bits != 0) {
+      d.write(index, id);
+    }
+  }
+
+  private Data grow(Data old) {
+    Data grown = new Data(old.bits == 0 ? 1 : old.bits * 2, size);
+    for (int i = 0; i < old.paletteSize; i++) {
+      grown.add(old.palette[i]);
+    }
+    if (old.bits != 0) {
+      for (int i = 0; i < size; i++) {
+        grown.write(i, old.read(i));
+      }
+    }
+    data = grown;
+    return grown;
+  }
+
+  @Override
+  public long estimateBytes() {
+    Data d = data;
+    long words = d.words == null ? 0 : 16 + 8L * d.words.length;
+    return 16 + 40 + words + (16 + 4L * d.palette.length) + (16 + d.lookup.length);
+  }
+
+  @Override
+  public PalettedBlockStorage copy() {
+    return new PalettedBlockStorage(this);
+  }
+
+  /** Cell-by-cell comparison, short-circuited when both sides share the same palette layout. */
+  @Override
+  public boolean contentEquals(BlockStorage storage) {
+    if (storage == this) return true;
+    if (storage == null || storage.size() != size) return false;
+    if (!(storage instanceof PalettedBlockStorage other)) {
+      for (int i = 0; i < size; i++) {
+        if (get(i) != storage.get(i)) return false;
+      }
+      return true;
+    }
+
+    Data a = data;
+    Data b = other.data;
+    if (a.bits == b.bits
+        && a.paletteSize == b.paletteSize
+        && Arrays.equals(a.palette, b.palette)
+        && Arrays.equals(a.words, b.words)) {
+      return true;
+    }
+    for (int i = 0; i < size; i++) {
+      if (a.palette[a.read(i)] != b.palette[b.read(i)]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,49 @@
+package com.game.minecraft.world.chunks;
+
+import static org.lwjgl.opengl.GL46C.*;
+
+import com.game.minecraft.world.Vertex;
+import java.nio.IntBuffer;
+import org.lwjgl.BufferUtils;
+
+/**
+ * The one element buffer every ChunkMesh draws through. Meshes store 4 vertices per quad; this
+ * buffer holds the two triangles (0, 1, 2) and (2, 3, 0) of each quad, for as many quads as a
+ * ChunkSection can possibly produce. Each section range is drawn from index 0 with its first vertex
+ * as the base vertex, so the same indices serve every section of every chunk.
+ */
+final class QuadIndexBuffer {
+
+  static final int INDICES_PER_QUAD = 6;
+
+  // every face of every block visible, e.g. a section full of leaves
+  static final int MAX_QUADS = ChunkSection.VOLUME * 6;
+
+  private static int eboId;
+
+  private QuadIndexBuffer() {}
+
+  /** Binds the buffer as the current VAO's element buffer, building it on first use. */
+  static void bind() {
+    if (eboId == 0) {
+      IntBuffer indices = BufferUtils.createIntBuffer(MAX_QUADS * INDICES_PER_QUAD);
+      for (int quad = 0; quad < MAX_QUADS; quad++) {
+        int v = quad * Vertex.VERTICES_PER_QUAD;
+        indices.put(v).put(v + 1).put(v + 2);
+        indices.put(v + 2).put(v + 3).put(v);
+      }
+      indices.flip();
+
+      eboId = glGenBuffers();
+      glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, eboId);
+      glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
+    } else {
+      glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, eboId);
+    }
+  }
+
+  /** Index count drawing the given number of quad vertices. */
+  static int indexCount(int vertexCount) {
+    return vertexCount / Vertex.VERTICES_PER_QUAD * INDICES_PER_QUAD;
+  }
+}
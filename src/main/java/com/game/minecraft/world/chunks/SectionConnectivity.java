@@ -0,0 +1,135 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Blocks;
+import com.game.minecraft.world.Vertex.Face;
+
+/**
+ * Which faces of a ChunkSection can see each other through it. The non-opaque cells (air and water)
+ * are flood filled, and every two faces touched by the same region are connected. The result is a
+ * 36-bit set with bit a * 6 + b (Face ordinals) set when faces a and b connect; it is symmetric.
+ * SectionVisibility walks these sets to skip what no opening leads to. Holds scratch state, so each
+ * ChunkMeshBuilder has its own.
+ */
+final class SectionConnectivity {
+
+  private static final int FACES = Face.values().length;
+
+  /** Every face connects to every other, e.g. an all-air section or one not meshed yet. */
+  static final long ALL = (1L << (FACES * FACES)) - 1;
+
+  private static final int N = ChunkSection.SIZE;
+  private static final int VOLUME = ChunkSection.VOLUME;
+
+  // ChunkSection.index() steps
+  private static final int STEP_Z = 1;
+  private static final int STEP_X = N;
+  private static final int STEP_Y = N * N;
+
+  private final long[] visited = new long[VOLUME / Long.SIZE];
+  private final int[] queue = new int[VOLUME];
+  // per palette entry of the current section: does it block sight
+  private boolean[] opaque = new boolean[16];
+
+  static boolean connects(long connectivity, int fromFace, int toFace) {
+    return (connectivity & (1L << (fromFace * FACES + toFace))) != 0;
+  }
+
+  static int opposite(int face) {
+    return face ^ 1; // TOP/BOTTOM, FRONT/BACK, LEFT/RIGHT
+  }
+
+  /** Connectivity of the section; null is all air. */
+  long compute(ChunkSection section) {
+    if (section == null) return ALL;
+
+    int paletteSize = section.getPaletteSize();
+    if (opaque.length < paletteSize) opaque = new boolean[paletteSize];
+    boolean anyClear = false;
+    for (int p = 0; p < paletteSize; p++) {
+      Blocks block = section.getPaletteEntry(p);
+      opaque[p] = block != null && block != Blocks.WATER1;
+      anyClear |= !opaque[p];
+    }
+    if (!anyClear) return 0;
+
+    for (int i = 0; i < visited.length; i++) {
+      visited[i] = 0;
+    }
+    long connectivity = 0;
+    for (int cell = 0; cell < VOLUME; cell++) {
+      if (isVisited(cell) || opaque[section.getPaletteIndex(cell)]) continue;
+      int faces = fill(section, cell);
+      for (int a = 0; a < FACES; a++) {
+        if ((faces & (1 << a)) == 0) continue;
+        for (int b = 0; b < FACES; b++) {
+          if ((faces & (1 << b)) != 0) connectivity |= 1L << (a * FACES + b);
+        }
+      }
+      if (connectivity == ALL) break;
+    }
+    return connectivity;
+  }
+
+  /** Floods the clear region holding cell and returns the faces it touches as a bit set. */
+  private int fill(ChunkSection section, int start) {
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = start;
+    markVisited(start);
+
+    int faces = 0;
+    while (head < tail) {
+      int cell = queue[head++];
+      int z = cell & (N - 1);
+      int x = (cell >>> 4) & (N - 1);
+      int localY = cell >>> 8;
+
+      if (localY == 0) {
+        faces |= 1 << Face.TOP.ordinal();
+      } else {
+        tail = visit(section, cell - STEP_Y, tail);
+      }
+      if (localY == N - 1) {
+        faces |= 1 << Face.BOTTOM.ordinal();
+      } else {
+        tail = visit(section, cell + STEP_Y, tail);
+      }
+      if (z == 0) {
+        faces |= 1 << Face.BACK.ordinal();
+      } else {
+        tail = visit(section, cell - STEP_Z, tail);
+      }
+      if (z == N - 1) {
+        faces |= 1 << Face.FRONT.ordinal();
+      } else {
+        tail = visit(section, cell + STEP_Z, tail);
+      }
+      if (x == 0) {
+        faces |= 1 << Face.LEFT.ordinal();
+      } else {
+        tail = visit(section, cell - STEP_X, tail);
+      }
+      if (x == N - 1) {
+        faces |= 1 << Face.RIGHT.ordinal();
+      } else {
+        tail = visit(section, cell + STEP_X, tail);
+      }
+    }
+    return faces;
+  }
+
+  private int visit(ChunkSection section, int cell, int tail) {
+    if (isVisited(cell) || opaque[section.getPaletteIndex(cell)]) return tail;
+    markVisited(cell);
+    queue[tail] = cell;
+    return tail + 1;
+  }
+
+  private boolean isVisited(int cell) {
+    return (visited[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  private void markVisited(int cell) {
+    visited[cell >>> 6] |= 1L << cell;
+  }
+}
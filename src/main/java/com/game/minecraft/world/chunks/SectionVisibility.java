@@ -0,0 +1,107 @@
+package com.game.minecraft.world.chunks;
+
+import com.game.minecraft.world.Vertex.Face;
+import org.joml.FrustumIntersection;
+
+/**
+ * Finds the chunk sections the camera could see into, with a breadth-first walk from the camera's
+ * section over each section's SectionConnectivity. A section is entered through one face and left
+ * only through faces its clear cells connect to that one, and a path never turns back along an axis
+ * it already moved along the other way, so sealed caves and mountain interiors are never reached.
+ * Sections outside the view frustum aren't entered either. The sections reached are marked on their
+ * chunks for Chunk.getVisitedSections(). Render thread only.
+ */
+public final class SectionVisibility {
+
+  private static final Face[] FACES = Face.values();
+  private static final int SECTIONS = ChunkData.SECTION_COUNT;
+  private static final int NO_FACE = FACES.length;
+
+  // entries: section | entry face << 4 | faces moved through << 7
+  private Chunk[] queueChunks = new Chunk[256];
+  private int[] queueEntries = new int[256];
+  private int walk;
+
+  /**
+   * Walks from the section of start holding the world position (x, y, z), which may be above or
+   * below the chunk. Returns the walk's number for Chunk.getVisitedSections().
+   */
+  public int walk(Chunk start, float x, float y, float z, FrustumIntersection frustum) {
+    walk++;
+    // world y to chunk y, which counts down from the top
+    int chunkY = (int) Math.floor(start.getYCoord() + 0.5f - y);
+    int section;
+    int entry;
+    if (chunkY < 0) {
+      section = 0;
+      entry = Face.TOP.ordinal();
+    } else if (chunkY >= Chunk.CHUNK_Y) {
+      section = SECTIONS - 1;
+      entry = Face.BOTTOM.ordinal();
+    } else {
+      section = chunkY / ChunkSection.SIZE;
+      entry = NO_FACE;
+    }
+
+    int head = 0;
+    int tail = 0;
+    start.visit(walk, section);
+    tail = enqueue(tail, start, section | entry << 4);
+
+    while (head < tail) {
+      Chunk chunk = queueChunks[head];
+      int queued = queueEntries[head];
+      queueChunks[head++] = null;
+      int s = queued & (SECTIONS - 1);
+      int from = (queued >>> 4) & 7;
+      int moved = queued >>> 7;
+      long connectivity = chunk.getConnectivity(s);
+
+      for (int face = 0; face < FACES.length; face++) {
+        if ((moved & (1 << SectionConnectivity.opposite(face))) != 0) continue;
+        if (from != NO_FACE && !SectionConnectivity.connects(connectivity, from, face)) continue;
+
+        Chunk next = chunk;
+        int nextSection = s;
+        if (face == Face.TOP.ordinal()) {
+          if (--nextSection < 0) continue;
+        } else if (face == Face.BOTTOM.ordinal()) {
+          if (++nextSection == SECTIONS) continue;
+        } else if ((next = chunk.getNeighbor(FACES[face])) == null) {
+          continue;
+        }
+        if (!inFrustum(next, nextSection, frustum) || !next.visit(walk, nextSection)) continue;
+
+        int nextFrom = SectionConnectivity.opposite(face);
+        tail = enqueue(tail, next, nextSection | nextFrom << 4 | (moved | 1 << face) << 7);
+      }
+    }
+    return walk;
+  }
+
+  private int enqueue(int tail, Chunk chunk, int entry) {
+    if (tail == queueChunks.length) {
+      Chunk[] chunks = new Chunk[tail * 2];
+      int[] entries = new int[tail * 2];
+      System.arraycopy(queueChunks, 0, chunks, 0, tail);
+      System.arraycopy(queueEntries, 0, entries, 0, tail);
+      queueChunks = chunks;
+      queueEntries = entries;
+    }
+    queueChunks[tail] = chunk;
+    queueEntries[tail] = entry;
+    return tail + 1;
+  }
+
+  // the section's whole cube, in world space (see vertex.glsl)
+  private static boolean inFrustum(Chunk chunk, int section, FrustumIntersection frustum) {
+    float top = chunk.getYCoord() + 0.5f - section * ChunkSection.SIZE;
+    return frustum.testAab(
+        chunk.getXCoord() - 0.5f,
+        top - ChunkSection.SIZE,
+        chunk.getZCoord() - 0.5f,
+        chunk.getXCoord() + Chunk.CHUNK_X - 0.5f,
+        top,
+        chunk.getZCoord() + Chunk.CHUNK_Z - 0.5f);
+  }
+}
@@ -0,0 +1,111 @@
+package com.game.minecraft.world.generations;
+
+import com.game.minecraft.world.Blocks;
+import com.game.minecraft.world.chunks.Chunk;
+import com.game.minecraft.world.chunks.ChunkCoordinate;
+import com.game.minecraft.world.chunks.ChunkData;
+import com.game.minecraft.world.chunks.ChunkSection;
+import com.game.minecraft.world.chunks.Heightmap;
+import java.util.Map;
+
+/**
+ * Merged view over a set of chunks, addressed in region coordinates (rx, y, rz) where (0, 0) is the
+ * corner of the lowest chunk coordinate. Works on a snapshot of each chunk's ChunkData, so only the
+ * sections that get written are copied and empty sections are never materialized; reads outside of
+ * any chunk are air and writes there are dropped.
+ */
+class ChunkRegion {
+
+  private final Map<ChunkCoordinate, Chunk> chunks;
+  private final int minChunkX;
+  private final int minChunkZ;
+  private final int chunksX;
+  private final int chunksZ;
+  private final ChunkData[] data;
+
+  final int width;
+  final int height;
+  final int depth;
+
+  ChunkRegion(Map<ChunkCoordinate, Chunk> chunks) {
+    this.chunks = chunks;
+
+    int minX = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int minZ = Integer.MAX_VALUE;
+    int maxZ = Integer.MIN_VALUE;
+    for (ChunkCoordinate coord : chunks.keySet()) {
+      minX = Math.min(minX, coord.x());
+      maxX = Math.max(maxX, coord.x());
+      minZ = Math.min(minZ, coord.z());
+      maxZ = Math.max(maxZ, coord.z());
+    }
+    minChunkX = minX;
+    minChunkZ = minZ;
+    chunksX = maxX - minX + 1;
+    chunksZ = maxZ - minZ + 1;
+    width = chunksX * Chunk.CHUNK_X;
+    depth = chunksZ * Chunk.CHUNK_Z;
+    height = Chunk.CHUNK_Y;
+
+    data = new ChunkData[chunksX * chunksZ];
+    for (Map.Entry<ChunkCoordinate, Chunk> entry : chunks.entrySet()) {
+      ChunkCoordinate coord = entry.getKey();
+      data[slot(coord.x() - minChunkX, coord.z() - minChunkZ)] =
+          entry.getValue().snapshotBlockData();
+    }
+  }
+
+  private int slot(int chunkX, int chunkZ) {
+    return chunkX * chunksZ + chunkZ;
+  }
+
+  private ChunkData dataAt(int rx, int rz) {
+    if (rx < 0 || rx >= width || rz < 0 || rz >= depth) return null;
+    return data[slot(rx / Chunk.CHUNK_X, rz / Chunk.CHUNK_Z)];
+  }
+
+  boolean inBounds(int rx, int y, int rz) {
+    return rx >= 0 && rx < width && y >= 0 && y < height && rz >= 0 && rz < depth;
+  }
+
+  Blocks get(int rx, int y, int rz) {
+    ChunkData chunkData = dataAt(rx, rz);
+    if (chunkData == null || y < 0 || y >= height) return null;
+    return chunkData.get(rx % Chunk.CHUNK_X, y, rz % Chunk.CHUNK_Z);
+  }
+
+  void set(int rx, int y, int rz, Blocks block) {
+    ChunkData chunkData = dataAt(rx, rz);
+    if (chunkData == null || y < 0 || y >= height) return;
+    chunkData.set(rx % Chunk.CHUNK_X, y, rz % Chunk.CHUNK_Z, block);
+  }
+
+  /** True when the section containing (rx, y, rz) holds only air (or lies outside every chunk). */
+  boolean isSectionEmpty(int rx, int y, int rz) {
+    ChunkData chunkData = dataAt(rx, rz);
+    return chunkData == null || chunkData.isSectionEmpty(y / ChunkSection.SIZE);
+  }
+
+  /** Returns the first non-air block's y-coordinate in column (rx, rz), from the heightmap. */
+  int findSurfaceY(int rx, int rz) {
+    ChunkData chunkData = dataAt(rx, rz);
+    if (chunkData == null) return -1;
+
+    int y = chunkData.getHeight(Heightmap.Type.NON_AIR, rx % Chunk.CHUNK_X, rz % Chunk.CHUNK_Z);
+    return y == Heightmap.NONE ? -1 : y;
+  }
+
+  /**
+   * Hands each chunk its data back, then drops the snapshots. Chunks whose data was not written
+   * keep their version and are left alone.
+   */
+  void writeBack() {
+    for (Map.Entry<ChunkCoordinate, Chunk> entry : chunks.entrySet()) {
+      ChunkCoordinate coord = entry.getKey();
+      ChunkData chunkData = data[slot(coord.x() - minChunkX, coord.z() - minChunkZ)];
+      entry.getValue().setBlockData(chunkData);
+      chunkData.release();
+    }
+  }
+}
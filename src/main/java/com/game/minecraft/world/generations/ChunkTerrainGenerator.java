@@ -4,10 +4,11 @@ import com.game.minecraft.world.Blocks;
 import com.game.minecraft.world.chunks.Biome;
 import com.game.minecraft.world.chunks.Chunk;
 import com.game.minecraft.world.chunks.ChunkCoordinate;
+import com.game.minecraft.world.chunks.ChunkData;
 
 /**
- * Generate new (deep copy) chunk data (blocks[][][]) if not found on disk. Apply biome blending,
- * terrain shape, caves distribution.
+ * Generate new chunk data (ChunkData) if not found on disk. Apply biome blending, terrain shape,
+ * caves distribution.
  */
 public class ChunkTerrainGenerator {
 
@@ -52,8 +53,8 @@ public class ChunkTerrainGenerator {
   private static final int SEA_LEVEL = Chunk.CHUNK_Y - 60;
 
   /** Generates new terrain block data for the requested coordinate. */
-  public Blocks[][][] generateTerrainsAt(ChunkCoordinate coord) {
-    Blocks[][][] blocks = new Blocks[Chunk.CHUNK_X][Chunk.CHUNK_Y][Chunk.CHUNK_Z];
+  public ChunkData generateTerrainsAt(ChunkCoordinate coord) {
+    ChunkData blocks = new ChunkData();
 
     // Noise config
     int octaves = 4;
@@ -132,7 +133,7 @@ public class ChunkTerrainGenerator {
             block = null;
           }
 
-          blocks[x][y][z] = block;
+          blocks.set(x, y, z, block);
 
           if (block == null || block == Blocks.WATER1 || block == Blocks.BEDROCK) {
             continue;
@@ -144,7 +145,7 @@ public class ChunkTerrainGenerator {
             block = bp.innerUpperBlock;
           }
 
-          blocks[x][y][z] = block;
+          blocks.set(x, y, z, block);
         }
       }
     }
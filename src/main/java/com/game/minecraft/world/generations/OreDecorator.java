@@ -39,41 +39,13 @@ public class OreDecorator {
     }
     if (snapshot.isEmpty()) return;
 
-    int minChunkX = Integer.MAX_VALUE;
-    int maxChunkX = Integer.MIN_VALUE;
-    int minChunkZ = Integer.MAX_VALUE;
-    int maxChunkZ = Integer.MIN_VALUE;
-    for (ChunkCoordinate coord : snapshot.keySet()) {
-      minChunkX = Math.min(minChunkX, coord.x());
-      maxChunkX = Math.max(maxChunkX, coord.x());
-      minChunkZ = Math.min(minChunkZ, coord.z());
-      maxChunkZ = Math.max(maxChunkZ, coord.z());
-    }
-    int chunksX = maxChunkX - minChunkX + 1;
-    int chunksZ = maxChunkZ - minChunkZ + 1;
-    final int regionWidth = chunksX * Chunk.CHUNK_X;
-    final int regionDepth = chunksZ * Chunk.CHUNK_Z;
-    final int regionHeight = Chunk.CHUNK_Y;
-
-    Blocks[][][] regionBlocks = new Blocks[regionWidth][regionHeight][regionDepth];
-    for (Map.Entry<ChunkCoordinate, Chunk> entry : snapshot.entrySet()) {
-      ChunkCoordinate coord = entry.getKey();
-      Chunk chunk = entry.getValue();
-      int offsetX = (coord.x() - minChunkX) * Chunk.CHUNK_X;
-      int offsetZ = (coord.z() - minChunkZ) * Chunk.CHUNK_Z;
-      Blocks[][][] chunkBlocks = chunk.getAllBlocks();
-      for (int x = 0; x < Chunk.CHUNK_X; x++) {
-        for (int y = 0; y < Chunk.CHUNK_Y; y++) {
-          System.arraycopy(
-              chunkBlocks[x][y], 0, regionBlocks[offsetX + x][y], offsetZ, Chunk.CHUNK_Z);
-        }
-      }
-    }
+    ChunkRegion region = new ChunkRegion(snapshot);
+    final int regionHeight = region.height;
 
     // For each (x,z) column, find the surface and try to seed an ore vein below it.
-    for (int rx = 0; rx < regionWidth; rx++) {
-      for (int rz = 0; rz < regionDepth; rz++) {
-        int surfaceY = findSurfaceY(regionBlocks, rx, rz, regionHeight);
+    for (int rx = 0; rx < region.width; rx++) {
+      for (int rz = 0; rz < region.depth; rz++) {
+        int surfaceY = region.findSurfaceY(rx, rz);
         if (surfaceY < 0) continue;
 
         // Compute vertical thresholds based on the surface.
@@ -85,42 +57,23 @@ public class OreDecorator {
 
         // For each block below the surface, attempt to seed an ore vein.
         for (int y = surfaceY + 1; y < regionHeight; y++) {
-          if (!isEligibleForOre(regionBlocks[rx][y][rz])) continue;
+          if (!isEligibleForOre(region.get(rx, y, rz))) continue;
           if (Math.random() > SEED_PROBABILITY) continue;
           OreSettings settings =
               determineOreSettings(y, upperOreTopLimit, middleOreTopLimit, deeperOreTopLimit);
           if (settings == null) continue;
-          if (isOre(regionBlocks[rx][y][rz])) continue;
-          generateOreVein(regionBlocks, rx, y, rz, settings, rx, y, rz);
+          if (isOre(region.get(rx, y, rz))) continue;
+          generateOreVein(region, rx, y, rz, settings, rx, y, rz);
         }
       }
     }
 
-    for (Map.Entry<ChunkCoordinate, Chunk> entry : snapshot.entrySet()) {
-      ChunkCoordinate coord = entry.getKey();
-      Chunk chunk = entry.getValue();
-      int offsetX = (coord.x() - minChunkX) * Chunk.CHUNK_X;
-      int offsetZ = (coord.z() - minChunkZ) * Chunk.CHUNK_Z;
-      Blocks[][][] newChunkData = new Blocks[Chunk.CHUNK_X][Chunk.CHUNK_Y][Chunk.CHUNK_Z];
-      for (int x = 0; x < Chunk.CHUNK_X; x++) {
-        for (int y = 0; y < Chunk.CHUNK_Y; y++) {
-          System.arraycopy(
-              regionBlocks[offsetX + x][y], offsetZ, newChunkData[x][y], 0, Chunk.CHUNK_Z);
-        }
-      }
-      chunk.setBlockData(newChunkData);
+    region.writeBack();
+    for (Chunk chunk : snapshot.values()) {
       chunk.setOreDecorated(true);
     }
   }
 
-  // Returns the first non-null block's y-coordinate in column (rx, rz).
-  private int findSurfaceY(Blocks[][][] region, int rx, int rz, int regionHeight) {
-    for (int y = 0; y < regionHeight; y++) {
-      if (region[rx][y][rz] != null) return y;
-    }
-    return -1;
-  }
-
   // Checks if a block is eligible for ore replacement.
   private boolean isEligibleForOre(Blocks block) {
     return block != null && (block == Blocks.STONE || block == Blocks.DIRT || block == Blocks.SAND);
@@ -170,7 +123,7 @@ public class OreDecorator {
    * maxRadius from the seed. seedX, seedY, seedZ are the original seed coordinates.
    */
   private void generateOreVein(
-      Blocks[][][] region,
+      ChunkRegion region,
       int sx,
       int sy,
       int sz,
@@ -178,39 +131,29 @@ public class OreDecorator {
       int seedX,
       int seedY,
       int seedZ) {
-    if (!inBounds(sx, sy, sz, region)) return;
-    if (!isEligibleForOre(region[sx][sy][sz])) return;
+    if (!region.inBounds(sx, sy, sz)) return;
+    if (!isEligibleForOre(region.get(sx, sy, sz))) return;
     int count = 0;
     Queue<int[]> queue = new LinkedList<>();
     queue.add(new int[] {sx, sy, sz});
     while (!queue.isEmpty() && count < settings.maxVeinSize) {
       int[] pos = queue.poll();
       int x = pos[0], y = pos[1], z = pos[2];
-      if (!inBounds(x, y, z, region)) continue;
+      if (!region.inBounds(x, y, z)) continue;
       int dist = Math.abs(x - seedX) + Math.abs(y - seedY) + Math.abs(z - seedZ);
       if (dist > settings.maxRadius) continue;
-      if (!isEligibleForOre(region[x][y][z])) continue;
-      region[x][y][z] = settings.oreType;
+      if (!isEligibleForOre(region.get(x, y, z))) continue;
+      region.set(x, y, z, settings.oreType);
       count++;
       for (int[] d : DIRECTIONS) {
         int nx = x + d[0], ny = y + d[1], nz = z + d[2];
-        if (inBounds(nx, ny, nz, region) && Math.random() < 0.3) { // propagation chance
+        if (region.inBounds(nx, ny, nz) && Math.random() < 0.3) { // propagation chance
           queue.add(new int[] {nx, ny, nz});
         }
       }
     }
   }
 
-  // Checks whether (x, y, z) is within the bounds of the region.
-  private boolean inBounds(int x, int y, int z, Blocks[][][] region) {
-    return x >= 0
-        && x < region.length
-        && y >= 0
-        && y < region[0].length
-        && z >= 0
-        && z < region[0][0].length;
-  }
-
   /**
    * Container for ore settings. oreType: the ore block type. maxVeinSize: the strict maximum number
    * of blocks in this vein (randomized within a range). maxRadius: the maximum Manhattan distance
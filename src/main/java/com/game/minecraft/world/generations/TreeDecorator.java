@@ -23,63 +23,22 @@ public class TreeDecorator {
     }
     if (snapshot.isEmpty()) return;
 
-    // bound
-    int minChunkX = Integer.MAX_VALUE;
-    int maxChunkX = Integer.MIN_VALUE;
-    int minChunkZ = Integer.MAX_VALUE;
-    int maxChunkZ = Integer.MIN_VALUE;
-    for (ChunkCoordinate coord : snapshot.keySet()) {
-      minChunkX = Math.min(minChunkX, coord.x());
-      maxChunkX = Math.max(maxChunkX, coord.x());
-      minChunkZ = Math.min(minChunkZ, coord.z());
-      maxChunkZ = Math.max(maxChunkZ, coord.z());
-    }
-
-    int chunksX = maxChunkX - minChunkX + 1;
-    int chunksZ = maxChunkZ - minChunkZ + 1;
-    final int regionWidth = chunksX * Chunk.CHUNK_X;
-    final int regionDepth = chunksZ * Chunk.CHUNK_Z;
-    final int regionHeight = Chunk.CHUNK_Y;
-
     // merge
-    Blocks[][][] regionBlocks = new Blocks[regionWidth][regionHeight][regionDepth];
-    for (Map.Entry<ChunkCoordinate, Chunk> entry : snapshot.entrySet()) {
-      ChunkCoordinate coord = entry.getKey();
-      Chunk chunk = entry.getValue();
-      int offsetX = (coord.x() - minChunkX) * Chunk.CHUNK_X;
-      int offsetZ = (coord.z() - minChunkZ) * Chunk.CHUNK_Z;
-      Blocks[][][] chunkBlocks = chunk.getAllBlocks();
-      for (int x = 0; x < Chunk.CHUNK_X; x++) {
-        for (int y = 0; y < Chunk.CHUNK_Y; y++) {
-          System.arraycopy(
-              chunkBlocks[x][y], 0, regionBlocks[offsetX + x][y], offsetZ, Chunk.CHUNK_Z);
-        }
-      }
-    }
+    ChunkRegion region = new ChunkRegion(snapshot);
 
     // decorate
-    decorateTreesForRegion(regionBlocks, regionWidth, regionDepth);
+    decorateTreesForRegion(region);
 
     // writeback
-    for (Map.Entry<ChunkCoordinate, Chunk> entry : snapshot.entrySet()) {
-      ChunkCoordinate coord = entry.getKey();
-      Chunk chunk = entry.getValue();
-      int offsetX = (coord.x() - minChunkX) * Chunk.CHUNK_X;
-      int offsetZ = (coord.z() - minChunkZ) * Chunk.CHUNK_Z;
-      Blocks[][][] newChunkData = new Blocks[Chunk.CHUNK_X][Chunk.CHUNK_Y][Chunk.CHUNK_Z];
-      for (int x = 0; x < Chunk.CHUNK_X; x++) {
-        for (int y = 0; y < Chunk.CHUNK_Y; y++) {
-          System.arraycopy(
-              regionBlocks[offsetX + x][y], offsetZ, newChunkData[x][y], 0, Chunk.CHUNK_Z);
-        }
-      }
-      chunk.setBlockData(newChunkData);
+    region.writeBack();
+    for (Chunk chunk : snapshot.values()) {
       chunk.setTreeDecorated(true);
     }
   }
 
-  private void decorateTreesForRegion(Blocks[][][] regionBlocks, int regionWidth, int regionDepth) {
-    final int regionHeight = Chunk.CHUNK_Y;
+  private void decorateTreesForRegion(ChunkRegion region) {
+    final int regionWidth = region.width;
+    final int regionDepth = region.depth;
 
     // tree configs
     double treeFrequency = 0.05;
@@ -91,12 +50,12 @@ public class TreeDecorator {
 
     for (int rx = 0; rx < regionWidth; rx++) {
       for (int rz = 0; rz < regionDepth; rz++) {
-        int surfaceY = findSurfaceY(regionBlocks, rx, rz, regionHeight);
+        int surfaceY = region.findSurfaceY(rx, rz);
         if (surfaceY < 0) {
           continue;
         }
 
-        Blocks blockBelow = regionBlocks[rx][surfaceY][rz];
+        Blocks blockBelow = region.get(rx, surfaceY, rz);
         if (blockBelow != Blocks.GRASS && blockBelow != Blocks.DIRT) {
           continue;
         }
@@ -125,14 +84,13 @@ public class TreeDecorator {
         int extraRadius = (int) (canopyVar * 2);
         int dynamicBaseCanopyRad = baseCanopyRadius + extraRadius;
 
-        int requiredClear = trunkHeight + dynamicCanopyLayers;
-        if (!isClearAbove(regionBlocks, rx, rz, surfaceY, requiredClear)) {
+        if (!isClearAbove(region, rx, rz, surfaceY)) {
           continue;
         }
 
         // Build:
         for (int y = surfaceY - 1; y >= surfaceY - trunkHeight && y >= 0; y--) {
-          regionBlocks[rx][y][rz] = Blocks.OAKWOOD;
+          region.set(rx, y, rz, Blocks.OAKWOOD);
         }
         int trunkTop = surfaceY - trunkHeight;
 
@@ -149,8 +107,8 @@ public class TreeDecorator {
               if (ax < 0 || ax >= regionWidth || az < 0 || az >= regionDepth) {
                 continue;
               }
-              if (canopyY >= 0 && regionBlocks[ax][canopyY][az] == null) {
-                regionBlocks[ax][canopyY][az] = Blocks.GREY_LEAVES;
+              if (canopyY >= 0 && region.get(ax, canopyY, az) == null) {
+                region.set(ax, canopyY, az, Blocks.GREY_LEAVES);
               }
             }
           }
@@ -159,15 +117,6 @@ public class TreeDecorator {
     }
   }
 
-  private int findSurfaceY(Blocks[][][] region, int rx, int rz, int regionHeight) {
-    for (int y = 0; y < regionHeight; y++) {
-      if (region[rx][y][rz] != null) {
-        return y;
-      }
-    }
-    return -1;
-  }
-
   private boolean isLocalMax(
       int rx, int rz, int regionWidth, int regionDepth, double treeNoise, double freq) {
     for (int dx = -1; dx <= 1; dx++) {
@@ -189,13 +138,10 @@ public class TreeDecorator {
     return true;
   }
 
-  private boolean isClearAbove(
-      Blocks[][][] region, int rx, int rz, int surfaceY, int requiredClear) {
-    for (int y = surfaceY - 1; y >= surfaceY - requiredClear && y >= 0; y--) {
-      if (region[rx][y][rz] != null) {
-        return false;
-      }
-    }
-    return true;
+  // surfaceY came from the heightmap, so the column is clear above it unless something (e.g. a
+  // canopy placed earlier in this pass) has since raised the column's top
+  private boolean isClearAbove(ChunkRegion region, int rx, int rz, int surfaceY) {
+    int top = region.findSurfaceY(rx, rz);
+    return top < 0 || top >= surfaceY;
   }
 }
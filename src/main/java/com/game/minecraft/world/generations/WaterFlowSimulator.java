@@ -3,8 +3,8 @@ package com.game.minecraft.world.generations;
 import com.game.minecraft.world.Blocks;
 import com.game.minecraft.world.chunks.Chunk;
 import com.game.minecraft.world.chunks.ChunkCoordinate;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import com.game.minecraft.world.chunks.ChunkSection;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,14 +14,43 @@ import java.util.Map;
  */
 public class WaterFlowSimulator {
 
-  private static class FlowNode {
-    final int x, y, z, distance;
+  /** Growable ring buffer of ints, used as a deque of packed flow nodes. */
+  private static final class IntDeque {
+    private int[] elements = new int[1024];
+    private int head;
+    private int size;
 
-    FlowNode(int x, int y, int z, int distance) {
-      this.x = x;
-      this.y = y;
-      this.z = z;
-      this.distance = distance;
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    void addFirst(int value) {
+      if (size == elements.length) grow();
+      head = (head - 1) & (elements.length - 1);
+      elements[head] = value;
+      size++;
+    }
+
+    void addLast(int value) {
+      if (size == elements.length) grow();
+      elements[(head + size) & (elements.length - 1)] = value;
+      size++;
+    }
+
+    int pollFirst() {
+      int value = elements[head];
+      head = (head + 1) & (elements.length - 1);
+      size--;
+      return value;
+    }
+
+    private void grow() {
+      int[] grown = new int[elements.length * 2];
+      for (int i = 0; i < size; i++) {
+        grown[i] = elements[(head + i) & (elements.length - 1)];
+      }
+      elements = grown;
+      head = 0;
     }
   }
 
@@ -35,100 +64,69 @@ public class WaterFlowSimulator {
   public void simulateWaterFlowForActiveRegion(Map<ChunkCoordinate, Chunk> activeChunks) {
     // snapshot
     Map<ChunkCoordinate, Chunk> snapshot = new HashMap<>(activeChunks);
-
-    // bounds
-    int minChunkX = Integer.MAX_VALUE;
-    int maxChunkX = Integer.MIN_VALUE;
-    int minChunkZ = Integer.MAX_VALUE;
-    int maxChunkZ = Integer.MIN_VALUE;
-    for (ChunkCoordinate coord : snapshot.keySet()) {
-      minChunkX = Math.min(minChunkX, coord.x());
-      maxChunkX = Math.max(maxChunkX, coord.x());
-      minChunkZ = Math.min(minChunkZ, coord.z());
-      maxChunkZ = Math.max(maxChunkZ, coord.z());
-    }
-
-    int chunksX = maxChunkX - minChunkX + 1;
-    int chunksZ = maxChunkZ - minChunkZ + 1;
-    final int regionWidth = chunksX * Chunk.CHUNK_X;
-    final int regionDepth = chunksZ * Chunk.CHUNK_Z;
-    final int regionHeight = Chunk.CHUNK_Y;
+    if (snapshot.isEmpty()) return;
 
     // merge
-    Blocks[][][] regionBlocks = new Blocks[regionWidth][regionHeight][regionDepth];
-    for (Map.Entry<ChunkCoordinate, Chunk> entry : snapshot.entrySet()) {
-      ChunkCoordinate coord = entry.getKey();
-      Chunk chunk = entry.getValue();
-      int offsetX = (coord.x() - minChunkX) * Chunk.CHUNK_X;
-      int offsetZ = (coord.z() - minChunkZ) * Chunk.CHUNK_Z;
-      Blocks[][][] chunkBlocks = chunk.getAllBlocks();
-      for (int x = 0; x < Chunk.CHUNK_X; x++) {
-        for (int y = 0; y < Chunk.CHUNK_Y; y++) {
-          System.arraycopy(
-              chunkBlocks[x][y], 0, regionBlocks[offsetX + x][y], offsetZ, Chunk.CHUNK_Z);
-        }
-      }
-    }
+    ChunkRegion region = new ChunkRegion(snapshot);
 
     // run simulation
-    simulateWaterFlowRegion(regionBlocks, regionWidth, regionHeight, regionDepth);
+    simulateWaterFlowRegion(region);
 
     // writeback
-    for (Map.Entry<ChunkCoordinate, Chunk> entry : snapshot.entrySet()) {
-      ChunkCoordinate coord = entry.getKey();
-      Chunk chunk = entry.getValue();
-      int offsetX = (coord.x() - minChunkX) * Chunk.CHUNK_X;
-      int offsetZ = (coord.z() - minChunkZ) * Chunk.CHUNK_Z;
-      Blocks[][][] newChunkData = new Blocks[Chunk.CHUNK_X][Chunk.CHUNK_Y][Chunk.CHUNK_Z];
-      for (int x = 0; x < Chunk.CHUNK_X; x++) {
-        for (int y = 0; y < Chunk.CHUNK_Y; y++) {
-          System.arraycopy(
-              regionBlocks[offsetX + x][y], offsetZ, newChunkData[x][y], 0, Chunk.CHUNK_Z);
-        }
-      }
-      chunk.setBlockData(newChunkData);
-    }
+    region.writeBack();
   }
 
-  private void simulateWaterFlowRegion(Blocks[][][] blocks, int width, int height, int depth) {
-    int[][][] flow = new int[width][height][depth];
-    for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        for (int z = 0; z < depth; z++) {
-          flow[x][y][z] = -1;
-        }
-      }
-    }
-
-    boolean[][][] isSolid = new boolean[width][height][depth];
-    for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        for (int z = 0; z < depth; z++) {
-          isSolid[x][y][z] = (blocks[x][y][z] != null && blocks[x][y][z].isSolid());
-        }
-      }
+  // flow distances never exceed this, so a node packs as cell * FLOW_RANGE + distance
+  private static final int FLOW_RANGE = 8;
+  private static final int PASS_STRIDE = 16;
+
+  // Per-cell flow state, kept across passes so a pass allocates nothing. A cell was reached in the
+  // current pass when its value is above passBase, and then holds passBase + flow distance + 1.
+  private int[] flow = new int[0];
+  private int passBase;
+  private final IntDeque queue = new IntDeque();
+
+  private void simulateWaterFlowRegion(ChunkRegion region) {
+    final int width = region.width;
+    final int height = region.height;
+    final int depth = region.depth;
+
+    int volume = width * height * depth;
+    if (flow.length < volume) {
+      flow = new int[volume];
+      passBase = 0;
+    } else if (passBase > Integer.MAX_VALUE - 2 * PASS_STRIDE) {
+      Arrays.fill(flow, 0);
+      passBase = 0;
+    } else {
+      passBase += PASS_STRIDE;
     }
+    final int base = passBase;
+    final int[] flow = this.flow;
 
-    Deque<FlowNode> queue = new ArrayDeque<>();
-
-    // Initialize the queue with existing water blocks.
+    // Initialize the queue with existing water blocks, skipping sections that hold only air.
     for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        for (int z = 0; z < depth; z++) {
-          if (blocks[x][y][z] == Blocks.WATER1) {
-            flow[x][y][z] = 0;
-            queue.add(new FlowNode(x, y, z, 0));
+      for (int z = 0; z < depth; z++) {
+        for (int y = 0; y < height; y += ChunkSection.SIZE) {
+          if (region.isSectionEmpty(x, y, z)) continue;
+          for (int sy = y; sy < y + ChunkSection.SIZE; sy++) {
+            if (region.get(x, sy, z) == Blocks.WATER1) {
+              int cell = (x * height + sy) * depth + z;
+              flow[cell] = base + 1;
+              queue.addLast(cell * FLOW_RANGE);
+            }
           }
         }
       }
     }
 
     while (!queue.isEmpty()) {
-      FlowNode node = queue.poll();
-      int x = node.x;
-      int y = node.y;
-      int z = node.z;
-      int d = node.distance;
+      int node = queue.pollFirst();
+      int cell = node / FLOW_RANGE;
+      int d = node % FLOW_RANGE;
+      int z = cell % depth;
+      int y = (cell / depth) % height;
+      int x = cell / (depth * height);
 
       // Horizontal neighbors
       for (int[] dir : HORIZONTAL_DIRECTIONS) {
@@ -138,24 +136,30 @@ public class WaterFlowSimulator {
         if (nx < 0 || nx >= width || nz < 0 || nz >= depth) {
           continue;
         }
-        if (!isSolid[nx][ny][nz]) {
-          if (d < 7 && (flow[nx][ny][nz] == -1 || flow[nx][ny][nz] > d + 1)) {
-            blocks[nx][ny][nz] = Blocks.WATER1;
-            flow[nx][ny][nz] = d + 1;
-            queue.add(new FlowNode(nx, ny, nz, d + 1));
+        if (!isSolid(region.get(nx, ny, nz))) {
+          int next = (nx * height + ny) * depth + nz;
+          if (d < 7 && (flow[next] <= base || flow[next] > base + d + 2)) {
+            region.set(nx, ny, nz, Blocks.WATER1);
+            flow[next] = base + d + 2;
+            queue.addLast(next * FLOW_RANGE + d + 1);
           }
         }
       }
 
       // Downward flow
       int by = y + 1;
-      if (by < height && !isSolid[x][by][z]) {
-        if (flow[x][by][z] == -1 || flow[x][by][z] > 0) {
-          blocks[x][by][z] = Blocks.WATER1;
-          flow[x][by][z] = 0;
-          queue.addFirst(new FlowNode(x, by, z, 0));
+      if (by < height && !isSolid(region.get(x, by, z))) {
+        int below = (x * height + by) * depth + z;
+        if (flow[below] <= base || flow[below] > base + 1) {
+          region.set(x, by, z, Blocks.WATER1);
+          flow[below] = base + 1;
+          queue.addFirst(below * FLOW_RANGE);
         }
       }
     }
   }
+
+  private boolean isSolid(Blocks block) {
+    return block != null && block.isSolid();
+  }
 }
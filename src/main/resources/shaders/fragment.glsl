@@ -2,14 +2,21 @@
 
 in vec2 vTexCoord;
 in vec3 vColor;
+flat in vec2 vTileOrigin;
 out vec4 FragColor;
 
 uniform sampler2D uTexture;
 uniform bool uIsWater;
 
+const float ATLAS = 256.0;
+const float TILE = 16.0;
+
 void main() {
-    // sample the texture
-    vec4 texColor = texture(uTexture, vTexCoord);
+    // repeat the tile across the face; take derivatives from the unwrapped coordinates so the
+    // mip level does not jump at tile seams
+    vec2 atlasCoord = (vTileOrigin + fract(vTexCoord) * TILE) / ATLAS;
+    vec2 unwrapped = vTexCoord * (TILE / ATLAS);
+    vec4 texColor = textureGrad(uTexture, atlasCoord, dFdx(unwrapped), dFdy(unwrapped));
 
     // multiply by vertex color
     vec3 finalColor = texColor.rgb * vColor;
@@ -1,16 +1,35 @@
 #version 330 core
 
-layout(location = 0) in vec3 vertexPosition;
-layout(location = 1) in vec2 textureCoords;
-layout(location = 2) in vec3 inColor;
+// packed vertex, see Vertex.java:
+//   x: corner x (5 bits) | corner y (9) << 5 | corner z (5) << 14 | face (3) << 19
+//      | draw slot high (4) << 22
+//   y: tile u (4) | tile v (4) << 4 | tint (2) << 8 | u (5) << 10 | v (5) << 15
+//      | draw slot low (12) << 20
+layout(location = 0) in uvec2 packedVertex;
 
-out vec2 vTexCoord;
+out vec2 vTexCoord;   // in tiles, > 1 across merged faces
 out vec3 vColor;
+flat out vec2 vTileOrigin;  // atlas pixel origin of the tile
 
 uniform mat4 uMVP;
+// per draw slot: world position of the chunk's block (0, 0, 0), see ChunkArena
+uniform samplerBuffer uChunkOffsets;
+
+const float TILE = 16.0;
+const vec3 TINTS[4] = vec3[4](vec3(1.0), vec3(0.3, 0.8, 0.3), vec3(1.0), vec3(1.0));
 
 void main() {
-    vTexCoord = textureCoords;
-    vColor    = inColor;   // pass color downstream
-    gl_Position = uMVP * vec4(vertexPosition, 1.0);
-}
\ No newline at end of file
+    uint a = packedVertex.x;
+    uint b = packedVertex.y;
+
+    // block corners sit half a block off block centers; chunk y counts down
+    vec3 corner = vec3(float(a & 31u), float((a >> 5) & 511u), float((a >> 14) & 31u));
+    uint slot = (b >> 20) | (a >> 22) << 12;
+    vec3 chunkOffset = texelFetch(uChunkOffsets, int(slot)).xyz;
+    vec3 position = chunkOffset + vec3(corner.x - 0.5, 0.5 - corner.y, corner.z - 0.5);
+
+    vTileOrigin = vec2(float(b & 15u), float((b >> 4) & 15u)) * TILE;
+    vColor      = TINTS[(b >> 8) & 3u];
+    vTexCoord   = vec2(float((b >> 10) & 31u), float((b >> 15) & 31u));
+    gl_Position = uMVP * vec4(position, 1.0);
+}
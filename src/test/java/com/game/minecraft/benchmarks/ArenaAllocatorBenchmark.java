@@ -0,0 +1,92 @@
+package com.game.minecraft.benchmarks;
+
+import com.game.minecraft.world.chunks.ArenaAllocator;
+import java.util.Random;
+
+/**
+ * Churns an ArenaAllocator the way chunk meshes use the ChunkArena: a resident set of section
+ * ranges, where each step either re-meshes a section into a new range or unloads and reloads a
+ * whole chunk. Prints the time per allocate/free pair, how full the arena ended up and how
+ * fragmented its free space is. Needs no GL context. Run with: java -cp
+ * target/classes:target/test-classes com.game.minecraft.benchmarks.ArenaAllocatorBenchmark [chunks]
+ * [steps]
+ */
+public class ArenaAllocatorBenchmark {
+
+  private static final int SECTIONS = 16;
+
+  public static void main(String[] args) {
+    int chunks = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+    int steps = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+    Random random = new Random(1);
+    ArenaAllocator allocator = new ArenaAllocator(1 << 18);
+    int[] first = new int[chunks * SECTIONS];
+    int[] size = new int[chunks * SECTIONS];
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      load(allocator, random, first, size, chunk);
+    }
+
+    for (int round = 0; round < 3; round++) {
+      int grows = 0;
+      long start = System.nanoTime();
+      for (int step = 0; step < steps; step++) {
+        int chunk = random.nextInt(chunks);
+        if (random.nextInt(8) == 0) {
+          for (int s = 0; s < SECTIONS; s++) {
+            free(allocator, first, size, chunk * SECTIONS + s);
+          }
+          grows += load(allocator, random, first, size, chunk);
+        } else {
+          int range = chunk * SECTIONS + random.nextInt(SECTIONS);
+          free(allocator, first, size, range);
+          grows += allocate(allocator, first, size, range, sectionSize(random));
+        }
+      }
+      long nanos = System.nanoTime() - start;
+      System.out.printf(
+          "round %d: %.1f ns per step, %d grows, %.1f%% of %d vertices used,"
+              + " %d free ranges, largest %d%n",
+          round + 1,
+          (double) nanos / steps,
+          grows,
+          100.0 * allocator.getUsed() / allocator.getCapacity(),
+          allocator.getCapacity(),
+          allocator.getFreeRangeCount(),
+          allocator.getLargestFree());
+    }
+  }
+
+  private static int load(
+      ArenaAllocator allocator, Random random, int[] first, int[] size, int chunk) {
+    int grows = 0;
+    for (int s = 0; s < SECTIONS; s++) {
+      grows += allocate(allocator, first, size, chunk * SECTIONS + s, sectionSize(random));
+    }
+    return grows;
+  }
+
+  // vertices of a section range with slack; surface sections are busy, most others empty
+  private static int sectionSize(Random random) {
+    int roll = random.nextInt(16);
+    if (roll < 10) return 0;
+    if (roll < 14) return 64 + random.nextInt(512);
+    return 512 + random.nextInt(4096);
+  }
+
+  private static int allocate(
+      ArenaAllocator allocator, int[] first, int[] size, int range, int vertices) {
+    size[range] = vertices;
+    if (vertices == 0) return 0;
+    first[range] = allocator.allocate(vertices);
+    if (first[range] != ArenaAllocator.NONE) return 0;
+    allocator.grow(allocator.getCapacity() * 2);
+    first[range] = allocator.allocate(vertices);
+    return 1;
+  }
+
+  private static void free(ArenaAllocator allocator, int[] first, int[] size, int range) {
+    if (size[range] > 0) allocator.free(first[range], size[range]);
+    size[range] = 0;
+  }
+}
@@ -0,0 +1,112 @@
+package com.game.minecraft.benchmarks;
+
+import com.game.minecraft.utils.ChunkCodec;
+import com.game.minecraft.world.Blocks;
+import com.game.minecraft.world.chunks.Chunk;
+import com.game.minecraft.world.chunks.ChunkCoordinate;
+import com.game.minecraft.world.chunks.ChunkData;
+import com.game.minecraft.world.generations.ChunkTerrainGenerator;
+import com.game.minecraft.world.generations.PerlinNoise;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Compares ChunkCodec (with and without deflate) against the legacy ObjectOutputStream encoding of
+ * a Blocks[][][] on generated terrain. Run with: java -cp target/classes:target/test-classes
+ * com.game.minecraft.benchmarks.ChunkCodecBenchmark [chunks] [rounds]
+ */
+public class ChunkCodecBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int chunkCount = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+    PerlinNoise.setSeed(1);
+    ChunkTerrainGenerator generator = new ChunkTerrainGenerator();
+    ChunkData[] chunks = new ChunkData[chunkCount];
+    int side = (int) Math.ceil(Math.sqrt(chunkCount));
+    for (int i = 0; i < chunkCount; i++) {
+      chunks[i] = generator.generateTerrainsAt(new ChunkCoordinate(i % side, i / side));
+    }
+
+    for (int round = 0; round < rounds; round++) {
+      System.out.println("round " + (round + 1));
+      runLegacy(chunks);
+      runCodec(chunks, false);
+      runCodec(chunks, true);
+    }
+  }
+
+  private static void runLegacy(ChunkData[] chunks) throws IOException, ClassNotFoundException {
+    long bytes = 0;
+    long encodeNanos = 0;
+    long decodeNanos = 0;
+    for (ChunkData data : chunks) {
+      Blocks[][][] legacy = toLegacyArray(data);
+
+      long start = System.nanoTime();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+        oos.writeObject(legacy);
+      }
+      byte[] encoded = out.toByteArray();
+      encodeNanos += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(encoded))) {
+        ois.readObject();
+      }
+      decodeNanos += System.nanoTime() - start;
+      bytes += encoded.length;
+    }
+    report("ObjectOutputStream", chunks.length, bytes, encodeNanos, decodeNanos);
+  }
+
+  private static void runCodec(ChunkData[] chunks, boolean compress) throws IOException {
+    long bytes = 0;
+    long encodeNanos = 0;
+    long decodeNanos = 0;
+    for (ChunkData data : chunks) {
+      long start = System.nanoTime();
+      byte[] encoded = ChunkCodec.encode(data, compress);
+      encodeNanos += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      ChunkData decoded = ChunkCodec.decode(encoded);
+      decodeNanos += System.nanoTime() - start;
+      bytes += encoded.length;
+
+      if (!decoded.contentEquals(data)) {
+        throw new IllegalStateException("ChunkCodec round trip mismatch");
+      }
+    }
+    report(
+        compress ? "ChunkCodec+deflate" : "ChunkCodec",
+        chunks.length,
+        bytes,
+        encodeNanos,
+        decodeNanos);
+  }
+
+  private static Blocks[][][] toLegacyArray(ChunkData data) {
+    Blocks[][][] blocks = new Blocks[Chunk.CHUNK_X][Chunk.CHUNK_Y][Chunk.CHUNK_Z];
+    for (int x = 0; x < Chunk.CHUNK_X; x++) {
+      for (int y = 0; y < Chunk.CHUNK_Y; y++) {
+        for (int z = 0; z < Chunk.CHUNK_Z; z++) {
+          blocks[x][y][z] = data.get(x, y, z);
+        }
+      }
+    }
+    return blocks;
+  }
+
+  private static void report(
+      String name, int chunks, long bytes, long encodeNanos, long decodeNanos) {
+    System.out.printf(
+        "  %-20s %8d bytes/chunk  encode %7.3f ms/chunk  decode %7.3f ms/chunk%n",
+        name, bytes / chunks, encodeNanos / 1e6 / chunks, decodeNanos / 1e6 / chunks);
+  }
+}
@@ -0,0 +1,157 @@
+package com.game.minecraft.benchmarks;
+
+import com.game.minecraft.camera.OcclusionBuffer;
+import com.game.minecraft.world.chunks.Chunk;
+import com.game.minecraft.world.chunks.ChunkCoordinate;
+import com.game.minecraft.world.chunks.ChunkData;
+import com.game.minecraft.world.chunks.Heightmap;
+import com.game.minecraft.world.chunks.OccluderSpans;
+import com.game.minecraft.world.generations.ChunkTerrainGenerator;
+import com.game.minecraft.world.generations.PerlinNoise;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+/**
+ * Runs OcclusionBuffer headless on generated terrain: a camera standing in the lowest column of the
+ * center chunk looks along each axis, the chunks within three rings are rasterized as occluders and
+ * every chunk in the frustum is tested. Prints, per view, how many of the chunks in view were
+ * occluded, then the depth buffer hash (the same for every thread count) and the time per view, for
+ * 1 up to one thread per core. Run with: java -cp target/classes:target/test-classes
+ * com.game.minecraft.benchmarks.OcclusionCullingBenchmark [radius] [rounds] [chunkX] [chunkZ]
+ */
+public class OcclusionCullingBenchmark {
+
+  private static final int OCCLUDER_DISTANCE = 3;
+  private static final float[] YAWS = {0, 90, 180, 270};
+
+  public static void main(String[] args) {
+    int radius = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+    int originX = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+    int originZ = args.length > 3 ? Integer.parseInt(args[3]) : -32; // a valley for seed 1
+
+    PerlinNoise.setSeed(1);
+    ChunkTerrainGenerator generator = new ChunkTerrainGenerator();
+    int side = radius * 2 + 1;
+    int[][] spans = new int[side * side][OccluderSpans.TILES];
+    // highest surface of each chunk, in chunk y
+    int[] tops = new int[side * side];
+    ChunkData center = null;
+    for (int i = 0; i < side * side; i++) {
+      ChunkCoordinate coord =
+          new ChunkCoordinate(originX + i % side - radius, originZ + i / side - radius);
+      ChunkData data = generator.generateTerrainsAt(coord);
+      OccluderSpans.compute(data, spans[i]);
+      tops[i] = Chunk.CHUNK_Y;
+      for (int x = 0; x < Chunk.CHUNK_X; x++) {
+        for (int z = 0; z < Chunk.CHUNK_Z; z++) {
+          tops[i] = Math.min(tops[i], data.getHeight(Heightmap.Type.SOLID, x, z));
+        }
+      }
+      if (i == side * side / 2) center = data;
+    }
+
+    // eye height above the lowest column of the center chunk; chunk y counts down from world y 0.5
+    int eyeX = 0, eyeZ = 0;
+    for (int x = 0; x < Chunk.CHUNK_X; x++) {
+      for (int z = 0; z < Chunk.CHUNK_Z; z++) {
+        if (center.getHeight(Heightmap.Type.SOLID, x, z)
+            > center.getHeight(Heightmap.Type.SOLID, eyeX, eyeZ)) {
+          eyeX = x;
+          eyeZ = z;
+        }
+      }
+    }
+    Vector3f eye =
+        new Vector3f(
+            originX * Chunk.CHUNK_X + eyeX,
+            0.5f - center.getHeight(Heightmap.Type.SOLID, eyeX, eyeZ) + 1.7f,
+            originZ * Chunk.CHUNK_Z + eyeZ);
+    System.out.printf("%d chunks, eye at %s%n", side * side, eye);
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    // 1, 2, 4, ... threads, ending with one per core
+    for (int threads = 1; ; threads = Math.min(cores, threads * 2)) {
+      OcclusionBuffer buffer = new OcclusionBuffer(256, 128, threads);
+      for (int round = 0; round < rounds; round++) {
+        boolean report = round == rounds - 1;
+        long start = System.nanoTime();
+        long hash = 0;
+        int[] inFrustum = new int[YAWS.length];
+        int[] occluded = new int[YAWS.length];
+        int faces = 0;
+        for (int v = 0; v < YAWS.length; v++) {
+          Matrix4f projectionView = view(eye, YAWS[v]);
+          FrustumIntersection frustum = new FrustumIntersection(projectionView);
+          addOccluders(buffer, frustum, projectionView, eye, spans, radius, originX, originZ);
+          buffer.rasterize();
+          faces += buffer.getFaceCount();
+          hash = hash * 31 + buffer.depthHash();
+
+          for (int i = 0; i < side * side; i++) {
+            float x = (originX + i % side - radius) * Chunk.CHUNK_X - 0.5f;
+            float z = (originZ + i / side - radius) * Chunk.CHUNK_Z - 0.5f;
+            float minY = 0.5f - Chunk.CHUNK_Y;
+            float maxY = 0.5f - tops[i];
+            if (!frustum.testAab(x, minY, z, x + Chunk.CHUNK_X, maxY, z + Chunk.CHUNK_Z)) continue;
+            inFrustum[v]++;
+            if (!buffer.isVisible(x, minY, z, x + Chunk.CHUNK_X, maxY, z + Chunk.CHUNK_Z)) {
+              occluded[v]++;
+            }
+          }
+        }
+        long nanos = System.nanoTime() - start;
+        if (report) {
+          System.out.printf(
+              "threads %d: %d faces, %.3f ms per view, depth hash %016x%n",
+              threads, faces, nanos / 1e6 / YAWS.length, hash);
+          for (int v = 0; v < YAWS.length; v++) {
+            System.out.printf(
+                "  yaw %3.0f: occluded %d of %d chunks in view%n",
+                YAWS[v], occluded[v], inFrustum[v]);
+          }
+        }
+      }
+      buffer.shutdown();
+      if (threads == cores) break;
+    }
+  }
+
+  private static Matrix4f view(Vector3f eye, float yaw) {
+    float radians = (float) Math.toRadians(yaw);
+    Vector3f target =
+        new Vector3f(eye).add((float) Math.cos(radians), -0.1f, (float) Math.sin(radians));
+    return new Matrix4f()
+        .perspective((float) Math.toRadians(70), 16f / 9, 0.1f, 8 * Chunk.CHUNK_X)
+        .lookAt(eye, target, new Vector3f(0, 1, 0));
+  }
+
+  private static void addOccluders(
+      OcclusionBuffer buffer,
+      FrustumIntersection frustum,
+      Matrix4f projectionView,
+      Vector3f eye,
+      int[][] spans,
+      int radius,
+      int originX,
+      int originZ) {
+    buffer.begin(projectionView, eye.x, eye.y, eye.z);
+    Vector3f min = new Vector3f();
+    Vector3f max = new Vector3f();
+    int side = radius * 2 + 1;
+    for (int i = 0; i < side * side; i++) {
+      int dx = i % side - radius;
+      int dz = i / side - radius;
+      if (Math.max(Math.abs(dx), Math.abs(dz)) > OCCLUDER_DISTANCE) continue;
+      float chunkX = (originX + dx) * Chunk.CHUNK_X;
+      float chunkZ = (originZ + dz) * Chunk.CHUNK_Z;
+      for (int tile = 0; tile < OccluderSpans.TILES; tile++) {
+        if (OccluderSpans.getBounds(spans[i][tile], tile, chunkX, 0, chunkZ, min, max)
+            && frustum.testAab(min, max)) {
+          buffer.addOccluder(min.x, min.y, min.z, max.x, max.y, max.z);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.game.minecraft.camera;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.game.minecraft.utils.Direction;
+import com.game.minecraft.utils.PersistStorage;
+import com.game.minecraft.world.World;
+import com.game.minecraft.world.chunks.Chunk;
+import com.game.minecraft.world.chunks.HeadlessMeshing;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs the part of Renderer.render() that needs no GL, frame after frame: camera input, the World
+ * update, Renderer.cullFrame() and both Renderer.queuePass() calls. Once warmed up it must allocate
+ * nothing on the render thread, except in frames where the camera enters another chunk. Without GL
+ * the chunks get no vertices, so their meshes are culled before the bounds tests; the section walk
+ * and the occluders get what a real mesh build gives them (see HeadlessMeshing).
+ */
+class FrameAllocationTest {
+
+  private static final int RADIUS = 3;
+  private static final int CHUNKS = (2 * RADIUS + 1) * (2 * RADIUS + 1);
+  private static final long LOAD_TIMEOUT_SECONDS = 60;
+  private static final int WARM_UP_FRAMES = 2_000;
+  private static final int WINDOW_FRAMES = 500;
+  private static final int WINDOWS = 12;
+  // the camera turns by 0.1 degrees and moves this far each frame, so it circles with a radius of
+  // 3 blocks across x = -1, where World puts it in the next chunk, twice a lap of 3600 frames
+  private static final float TURN = -1;
+  private static final float STEP_SECONDS = 3 * (float) Math.toRadians(0.1) / 5;
+
+  @TempDir Path saveDir;
+
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private final Camera camera = new Camera();
+  private World world;
+
+  @BeforeEach
+  void setUp() throws InterruptedException {
+    world = new World();
+    PersistStorage.setWorldInstanceName(saveDir.toString());
+    world.setChunkLayerRadius(RADIUS);
+    Vector3f position = camera.getPosition();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(LOAD_TIMEOUT_SECONDS);
+    while (world.getActiveChunkCount() < CHUNKS) {
+      if (System.nanoTime() > deadline) {
+        fail("only " + world.getActiveChunkCount() + " of " + CHUNKS + " chunks loaded");
+      }
+      world.updatePlayerPosition(position.x, position.z);
+      Thread.sleep(10);
+    }
+    for (int i = 0; i < CHUNKS; i++) {
+      HeadlessMeshing.mesh(world.getActiveChunk(i));
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    world.shutdown();
+  }
+
+  @Test
+  void frameAllocatesNothingWithOneBand() {
+    assertFramesAllocateNothing(new OcclusionBuffer(256, 128, 1));
+  }
+
+  @Test
+  void frameAllocatesNothingWithHelperBands() {
+    assertFramesAllocateNothing(new OcclusionBuffer(256, 128, 3));
+  }
+
+  private void assertFramesAllocateNothing(OcclusionBuffer occlusion) {
+    try {
+      Renderer renderer = new Renderer(world, occlusion);
+      renderer.setRenderDistance(RADIUS);
+      for (int i = 0; i < WARM_UP_FRAMES; i++) {
+        frame(renderer);
+      }
+      // before compiling a method C2 resolves the string constants of its class on the thread that
+      // asked for it, a one-off allocation in whichever frame that is; one that repeats shows up in
+      // every window
+      long fewest = Long.MAX_VALUE;
+      int crossings = 0;
+      int faces = 0;
+      for (int window = 0; window < WINDOWS; window++) {
+        int chunkX = playerChunkX();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < WINDOW_FRAMES; i++) {
+          frame(renderer);
+          faces = Math.max(faces, occlusion.getFaceCount());
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        if (playerChunkX() != chunkX) {
+          crossings++;
+        } else {
+          fewest = Math.min(fewest, allocated);
+        }
+      }
+
+      assertEquals(0, fewest);
+      assertTrue(crossings > 0);
+      assertTrue(faces > 0);
+    } finally {
+      occlusion.shutdown();
+    }
+  }
+
+  private int playerChunkX() {
+    return Math.floorDiv((int) camera.getPosition().x, Chunk.CHUNK_X);
+  }
+
+  // Renderer.render() without the uploads and draws
+  private void frame(Renderer renderer) {
+    camera.processMouseMovement(TURN, 0);
+    camera.processKeyboard(Direction.FORWARD, STEP_SECONDS);
+
+    Vector3f position = camera.getPosition();
+    world.updatePlayerPosition(position.x, position.z);
+    renderer.cullFrame(camera, 1280, 720);
+    renderer.queuePass(false);
+    renderer.queuePass(true);
+  }
+}
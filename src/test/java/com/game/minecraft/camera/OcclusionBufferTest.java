@@ -0,0 +1,113 @@
+package com.game.minecraft.camera;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** A camera at the origin looking down -z, with a 4x4 wall 10 blocks ahead. */
+class OcclusionBufferTest {
+
+  private final Matrix4f projectionView =
+      new Matrix4f()
+          .perspective((float) Math.toRadians(70), 2, 0.1f, 100)
+          .lookAt(0, 0, 0, 0, 0, -1, 0, 1, 0);
+
+  private OcclusionBuffer buffer;
+
+  @BeforeEach
+  void setUp() {
+    buffer = new OcclusionBuffer(256, 128, 1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    buffer.shutdown();
+  }
+
+  private static void addScene(OcclusionBuffer buffer, Matrix4f projectionView) {
+    buffer.begin(projectionView, 0, 0, 0);
+    buffer.addOccluder(-2, -2, -11, 2, 2, -10);
+    buffer.rasterize();
+  }
+
+  @Test
+  void wallHidesABoxBehindIt() {
+    addScene(buffer, projectionView);
+
+    assertFalse(buffer.isVisible(-1, -1, -31, 1, 1, -29));
+  }
+
+  @Test
+  void boxesInFrontBesideOrAboveTheWallStayVisible() {
+    addScene(buffer, projectionView);
+
+    assertTrue(buffer.isVisible(-1, -1, -6, 1, 1, -4)); // in front
+    assertTrue(buffer.isVisible(8, -1, -31, 10, 1, -29)); // beside
+    assertTrue(buffer.isVisible(-1, -1, -31, 1, 12, -29)); // reaching above
+  }
+
+  @Test
+  void boxAcrossTheNearPlaneIsVisible() {
+    addScene(buffer, projectionView);
+
+    assertTrue(buffer.isVisible(-1, -1, -31, 1, 1, 1));
+  }
+
+  @Test
+  void onlyFacesTowardsTheCameraAreRasterized() {
+    addScene(buffer, projectionView);
+
+    assertEquals(1, buffer.getFaceCount());
+    assertEquals(1f, buffer.getDepth(0, 0));
+    assertTrue(buffer.getDepth(128, 64) < 1);
+  }
+
+  @Test
+  void floorClippedByTheNearPlaneHidesWhatIsBelowIt() {
+    buffer.begin(projectionView, 0, 0, 0);
+    buffer.addOccluder(-50, -3, -50, 50, -2, 5);
+    buffer.rasterize();
+
+    assertEquals(1, buffer.getFaceCount());
+    assertFalse(buffer.isVisible(-1, -10, -31, 1, -5, -29));
+    assertTrue(buffer.isVisible(-1, -1, -31, 1, 1, -29));
+  }
+
+  @Test
+  void occludersBehindTheCameraHideNothing() {
+    buffer.begin(projectionView, 0, 0, 0);
+    buffer.addOccluder(-2, -2, 10, 2, 2, 11);
+    buffer.rasterize();
+
+    assertEquals(0, buffer.getFaceCount());
+    assertTrue(buffer.isVisible(-1, -1, -31, 1, 1, -29));
+  }
+
+  @Test
+  void emptyBufferHidesNothing() {
+    buffer.begin(projectionView, 0, 0, 0);
+    buffer.rasterize();
+
+    assertTrue(buffer.isVisible(-1, -1, -31, 1, 1, -29));
+  }
+
+  @Test
+  void bandsGiveTheSameDepthAsOneThread() {
+    addScene(buffer, projectionView);
+    OcclusionBuffer banded = new OcclusionBuffer(256, 128, 3);
+    try {
+      for (int frame = 0; frame < 3; frame++) {
+        addScene(banded, projectionView);
+        assertEquals(buffer.depthHash(), banded.depthHash());
+        assertFalse(banded.isVisible(-1, -1, -31, 1, 1, -29));
+      }
+    } finally {
+      banded.shutdown();
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.game.minecraft.camera;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class RenderStatsTest {
+
+  @Test
+  void resetStartsEveryCountOver() {
+    RenderStats stats = new RenderStats();
+    stats.passDrawn(3);
+    stats.passDrawn(0);
+    stats.meshDrawn(2, 1, 1);
+    stats.meshCulled(4, 0);
+    stats.meshOccluded(0, 5);
+    assertEquals(1, stats.getDrawCalls());
+
+    stats.reset();
+    stats.passDrawn(1);
+
+    assertEquals(1, stats.getDrawCalls());
+    assertEquals(0, stats.getMeshesDrawn());
+    assertEquals(0, stats.getMeshesCulled());
+    assertEquals(0, stats.getMeshesOccluded());
+    assertEquals(0, stats.getSectionsDrawn());
+    assertEquals(0, stats.getSectionsCulled());
+    assertEquals(0, stats.getSectionsOccluded());
+  }
+}
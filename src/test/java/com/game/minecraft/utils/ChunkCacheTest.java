@@ -0,0 +1,117 @@
+package com.game.minecraft.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.game.minecraft.world.Blocks;
+import com.game.minecraft.world.chunks.ChunkCoordinate;
+import com.game.minecraft.world.chunks.ChunkData;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChunkCacheTest {
+
+  @TempDir Path saveDir;
+
+  private long chunkBytes;
+  private long encodedBytes;
+
+  @BeforeEach
+  void setUp() {
+    PersistStorage.setWorldInstanceName(saveDir.toString());
+    // every chunk(i) then encodes to the same size
+    PersistStorage.setCompression(false);
+    chunkBytes = chunk(0).estimateBytes();
+    encodedBytes = 16L + PersistStorage.encode(chunk(0)).length;
+  }
+
+  @AfterEach
+  void tearDown() {
+    PersistStorage.close();
+    PersistStorage.setCompression(true);
+  }
+
+  // same layout for every i, only the block type differs
+  private static ChunkData chunk(int i) {
+    Blocks block = Blocks.values()[i % Blocks.values().length];
+    ChunkData data = new ChunkData();
+    for (int x = 0; x < 16; x++) {
+      data.set(x, 100, x, block);
+      data.set(x, 120, 3, Blocks.BEDROCK);
+    }
+    return data;
+  }
+
+  private static ChunkCoordinate coord(int i) {
+    return new ChunkCoordinate(i, 0);
+  }
+
+  @Test
+  void hotTierEvictsLeastRecentlyUsedByBytes() {
+    ChunkCache cache = new ChunkCache(2 * chunkBytes + chunkBytes / 2, 64 * encodedBytes);
+    cache.put(coord(0), chunk(0));
+    cache.put(coord(1), chunk(1));
+    assertNotNull(cache.get(coord(0)));
+    cache.put(coord(2), chunk(2));
+
+    // 1 was the least recently used, so it went to the warm tier
+    assertEquals(1, cache.getHotEvictions());
+    assertTrue(cache.getHotBytes() <= 2 * chunkBytes + chunkBytes / 2);
+    assertEquals(encodedBytes, cache.getWarmBytes());
+    assertEquals(1, cache.getHotHits());
+    assertEquals(0, cache.getWarmHits());
+  }
+
+  @Test
+  void warmHitDecodesAndPromotes() {
+    ChunkCache cache = new ChunkCache(chunkBytes, 64 * encodedBytes);
+    cache.put(coord(0), chunk(0));
+    cache.put(coord(1), chunk(1));
+
+    ChunkData data = cache.get(coord(0));
+    assertNotNull(data);
+    assertTrue(chunk(0).contentEquals(data));
+    assertEquals(1, cache.getWarmHits());
+
+    // promoting 0 pushed 1 out of the hot tier; 0 is no longer in the warm tier
+    assertEquals(2, cache.getHotEvictions());
+    assertEquals(encodedBytes, cache.getWarmBytes());
+    assertTrue(chunk(1).contentEquals(cache.get(coord(1))));
+  }
+
+  @Test
+  void warmTierSpillsToDiskByBytes() {
+    ChunkCache cache = new ChunkCache(chunkBytes, encodedBytes);
+    for (int i = 0; i < 4; i++) {
+      cache.put(coord(i), chunk(i));
+    }
+
+    // 3 is hot, 2 is warm, 0 and 1 were written out
+    assertEquals(3, cache.getHotEvictions());
+    assertEquals(2, cache.getWarmEvictions());
+    assertEquals(encodedBytes, cache.getWarmBytes());
+    assertNull(cache.get(coord(0)));
+    assertEquals(1, cache.getMisses());
+
+    PersistStorage.close();
+    assertTrue(chunk(0).contentEquals(PersistStorage.loadFromFile(coord(0))));
+    assertTrue(chunk(1).contentEquals(PersistStorage.loadFromFile(coord(1))));
+    assertNull(PersistStorage.loadFromFile(coord(2)));
+  }
+
+  @Test
+  void putReplacesBothTiers() {
+    ChunkCache cache = new ChunkCache(chunkBytes, 64 * encodedBytes);
+    cache.put(coord(0), chunk(0));
+    cache.put(coord(1), chunk(1));
+    cache.put(coord(0), chunk(5));
+
+    assertTrue(chunk(5).contentEquals(cache.get(coord(0))));
+    assertEquals(0, cache.getWarmHits());
+  }
+}
@@ -0,0 +1,86 @@
+package com.game.minecraft.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.game.minecraft.world.Blocks;
+import com.game.minecraft.world.chunks.Chunk;
+import com.game.minecraft.world.chunks.ChunkCoordinate;
+import com.game.minecraft.world.chunks.ChunkData;
+import com.game.minecraft.world.chunks.Heightmap;
+import com.game.minecraft.world.generations.ChunkTerrainGenerator;
+import com.game.minecraft.world.generations.PerlinNoise;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class ChunkCodecTest {
+
+  @Test
+  void generatedTerrainRoundTrips() throws IOException {
+    PerlinNoise.setSeed(1);
+    ChunkTerrainGenerator generator = new ChunkTerrainGenerator();
+    for (int i = 0; i < 4; i++) {
+      ChunkData data = generator.generateTerrainsAt(new ChunkCoordinate(i, -i));
+      for (boolean compress : new boolean[] {false, true}) {
+        assertSameChunk(data, ChunkCodec.decode(ChunkCodec.encode(data, compress)));
+      }
+    }
+  }
+
+  @Test
+  void emptyChunkRoundTrips() throws IOException {
+    ChunkData decoded = ChunkCodec.decode(ChunkCodec.encode(new ChunkData(), false));
+
+    for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+      assertTrue(decoded.isSectionEmpty(s));
+    }
+    assertEquals(Heightmap.NONE, decoded.getHeight(Heightmap.Type.values()[0], 0, 0));
+  }
+
+  @Test
+  void sparseEditsRoundTrip() throws IOException {
+    ChunkData data = new ChunkData();
+    data.set(0, 0, 0, Blocks.STONE);
+    data.set(Chunk.CHUNK_X - 1, Chunk.CHUNK_Y - 1, Chunk.CHUNK_Z - 1, Blocks.SAND);
+    data.set(5, 37, 9, Blocks.DIRT);
+    data.set(5, 38, 9, Blocks.DIRT);
+
+    ChunkData decoded = ChunkCodec.decode(ChunkCodec.encode(data, true));
+
+    assertSameChunk(data, decoded);
+    assertNull(decoded.get(1, 0, 0));
+  }
+
+  @Test
+  void deflateShrinksGeneratedTerrain() {
+    PerlinNoise.setSeed(1);
+    ChunkData data = new ChunkTerrainGenerator().generateTerrainsAt(new ChunkCoordinate(0, 0));
+
+    assertTrue(ChunkCodec.encode(data, true).length < ChunkCodec.encode(data, false).length);
+  }
+
+  @Test
+  void rejectsUnknownVersionAndTruncatedData() {
+    byte[] encoded = ChunkCodec.encode(new ChunkData(), false);
+    encoded[0] = (byte) (ChunkCodec.VERSION + 1);
+
+    assertThrows(IOException.class, () -> ChunkCodec.decode(encoded));
+    assertThrows(IOException.class, () -> ChunkCodec.decode(new byte[] {ChunkCodec.VERSION}));
+  }
+
+  private static void assertSameChunk(ChunkData expected, ChunkData actual) {
+    assertTrue(expected.contentEquals(actual));
+    for (int s = 0; s < ChunkData.SECTION_COUNT; s++) {
+      assertEquals(expected.isSectionEmpty(s), actual.isSectionEmpty(s), "section " + s);
+    }
+    for (Heightmap.Type type : Heightmap.Type.values()) {
+      for (int x = 0; x < Chunk.CHUNK_X; x++) {
+        for (int z = 0; z < Chunk.CHUNK_Z; z++) {
+          assertEquals(expected.getHeight(type, x, z), actual.getHeight(type, x, z));
+        }
+      }
+    }
+  }
+}
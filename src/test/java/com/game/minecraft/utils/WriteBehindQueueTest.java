@@ -0,0 +1,145 @@
+package com.game.minecraft.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.game.minecraft.world.chunks.ChunkCoordinate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@Timeout(10)
+class WriteBehindQueueTest {
+
+  private static final ChunkCoordinate A = new ChunkCoordinate(0, 0);
+  private static final ChunkCoordinate B = new ChunkCoordinate(1, 0);
+  private static final ChunkCoordinate C = new ChunkCoordinate(2, 0);
+
+  // writes in order, as "x,z=data"; the first write blocks until release counts down
+  private final List<String> written = new ArrayList<>();
+  private final CountDownLatch writing = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private WriteBehindQueue<String> queue;
+  private Thread writerThread;
+
+  private void start(int capacity) {
+    queue =
+        new WriteBehindQueue<>(
+            (coord, data) -> {
+              writing.countDown();
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              synchronized (written) {
+                written.add(coord.x() + "," + coord.z() + "=" + data);
+              }
+            },
+            capacity);
+    writerThread = new Thread(queue, "TestWriter");
+    writerThread.start();
+  }
+
+  @AfterEach
+  void stop() throws InterruptedException {
+    release.countDown();
+    queue.stop();
+    writerThread.join();
+  }
+
+  @Test
+  void repeatedSavesCoalesceIntoTheLatest() throws InterruptedException {
+    start(8);
+    queue.enqueue(A, "a");
+    writing.await();
+    queue.enqueue(B, "b1");
+    queue.enqueue(B, "b2");
+    queue.enqueue(B, "b3");
+
+    assertEquals(2, queue.getBacklog());
+    release.countDown();
+    queue.flush();
+
+    assertEquals(List.of("0,0=a", "1,0=b3"), written);
+  }
+
+  @Test
+  void pendingStaysReadableUntilWritten() throws InterruptedException {
+    start(8);
+    queue.enqueue(A, "a");
+    writing.await();
+
+    // A is being written right now, B is still queued
+    queue.enqueue(B, "b");
+    assertEquals("a", queue.getPending(A));
+    assertEquals("b", queue.getPending(B));
+    assertNull(queue.getPending(C));
+
+    release.countDown();
+    queue.flush();
+    assertNull(queue.getPending(A));
+    assertNull(queue.getPending(B));
+  }
+
+  @Test
+  void saveDuringItsOwnWriteIsWrittenAgain() throws InterruptedException {
+    start(8);
+    queue.enqueue(A, "a1");
+    writing.await();
+    queue.enqueue(A, "a2");
+
+    release.countDown();
+    queue.flush();
+
+    assertEquals(List.of("0,0=a1", "0,0=a2"), written);
+  }
+
+  @Test
+  void fullBacklogBlocksUntilTheWriterCatchesUp() throws InterruptedException {
+    start(2);
+    queue.enqueue(A, "a");
+    writing.await();
+    queue.enqueue(B, "b");
+    // a coordinate already queued still coalesces without waiting
+    queue.enqueue(B, "b2");
+
+    CountDownLatch enqueued = new CountDownLatch(1);
+    Thread producer =
+        new Thread(
+            () -> {
+              queue.enqueue(C, "c");
+              enqueued.countDown();
+            });
+    producer.start();
+    assertFalse(enqueued.await(200, TimeUnit.MILLISECONDS));
+
+    release.countDown();
+    assertTrue(enqueued.await(5, TimeUnit.SECONDS));
+    producer.join();
+    queue.flush();
+    assertEquals(List.of("0,0=a", "1,0=b2", "2,0=c"), written);
+  }
+
+  @Test
+  void stopDrainsTheBacklogAndLaterSavesWriteInline() throws InterruptedException {
+    start(8);
+    queue.enqueue(A, "a");
+    queue.enqueue(B, "b");
+    release.countDown();
+    queue.stop();
+    writerThread.join();
+    assertEquals(List.of("0,0=a", "1,0=b"), written);
+
+    queue.enqueue(C, "c");
+    assertEquals(List.of("0,0=a", "1,0=b", "2,0=c"), written);
+    assertEquals(0, queue.getBacklog());
+  }
+}
@@ -0,0 +1,169 @@
+package com.game.minecraft.world.chunks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ArenaAllocatorTest {
+
+  @Test
+  void allocatesFirstFitFromTheStart() {
+    ArenaAllocator allocator = new ArenaAllocator(100);
+
+    assertEquals(0, allocator.allocate(10));
+    assertEquals(10, allocator.allocate(20));
+    assertEquals(30, allocator.allocate(70));
+    assertEquals(ArenaAllocator.NONE, allocator.allocate(1));
+    assertEquals(100, allocator.getUsed());
+    assertEquals(0, allocator.getFreeRangeCount());
+  }
+
+  @Test
+  void freedRangeIsReusedByTheNextAllocationThatFits() {
+    ArenaAllocator allocator = new ArenaAllocator(100);
+    allocator.allocate(10);
+    int middle = allocator.allocate(20);
+    allocator.allocate(30);
+
+    allocator.free(middle, 20);
+    // too big for the hole, so it goes after the live ranges
+    assertEquals(60, allocator.allocate(25));
+    assertEquals(middle, allocator.allocate(15));
+    assertEquals(middle + 15, allocator.allocate(5));
+    assertEquals(1, allocator.getFreeRangeCount());
+  }
+
+  @Test
+  void freeCoalescesWithBothNeighbors() {
+    ArenaAllocator allocator = new ArenaAllocator(60);
+    int a = allocator.allocate(20);
+    int b = allocator.allocate(20);
+    int c = allocator.allocate(20);
+
+    allocator.free(a, 20);
+    allocator.free(c, 20);
+    assertEquals(2, allocator.getFreeRangeCount());
+    assertEquals(20, allocator.getLargestFree());
+
+    allocator.free(b, 20);
+    assertEquals(1, allocator.getFreeRangeCount());
+    assertEquals(60, allocator.getLargestFree());
+    assertEquals(0, allocator.getUsed());
+    assertEquals(0, allocator.allocate(60));
+  }
+
+  @Test
+  void fragmentationKeepsOneFreeRangePerHole() {
+    ArenaAllocator allocator = new ArenaAllocator(100);
+    for (int i = 0; i < 10; i++) {
+      allocator.allocate(10);
+    }
+    for (int offset = 0; offset < 100; offset += 20) {
+      allocator.free(offset, 10);
+    }
+
+    assertEquals(5, allocator.getFreeRangeCount());
+    assertEquals(10, allocator.getLargestFree());
+    assertEquals(50, allocator.getUsed());
+    // half the arena is free, but not in one piece
+    assertEquals(ArenaAllocator.NONE, allocator.allocate(11));
+  }
+
+  @Test
+  void growAddsFreeSpaceThatJoinsTheTrailingRange() {
+    ArenaAllocator allocator = new ArenaAllocator(100);
+    allocator.allocate(90);
+    assertEquals(ArenaAllocator.NONE, allocator.allocate(50));
+
+    allocator.grow(200);
+    assertEquals(200, allocator.getCapacity());
+    assertEquals(1, allocator.getFreeRangeCount());
+    assertEquals(110, allocator.getLargestFree());
+    assertEquals(90, allocator.allocate(50));
+  }
+
+  @Test
+  void growsFromEmpty() {
+    ArenaAllocator allocator = new ArenaAllocator(0);
+    assertEquals(ArenaAllocator.NONE, allocator.allocate(1));
+
+    allocator.grow(16);
+    assertEquals(0, allocator.allocate(16));
+  }
+
+  @Test
+  void rejectsBadRangesAndDoubleFrees() {
+    ArenaAllocator allocator = new ArenaAllocator(100);
+    int offset = allocator.allocate(10);
+    allocator.free(offset, 10);
+
+    assertThrows(IllegalStateException.class, () -> allocator.free(offset, 10));
+    assertThrows(IllegalStateException.class, () -> allocator.free(5, 10));
+    assertThrows(IllegalArgumentException.class, () -> allocator.free(95, 10));
+    assertThrows(IllegalArgumentException.class, () -> allocator.allocate(0));
+    assertThrows(IllegalArgumentException.class, () -> allocator.grow(50));
+    assertThrows(IllegalArgumentException.class, () -> new ArenaAllocator(-1));
+  }
+
+  @Test
+  void randomChurnMatchesABitmapOfLiveUnits() {
+    Random random = new Random(1);
+    ArenaAllocator allocator = new ArenaAllocator(1024);
+    BitSet live = new BitSet();
+    int[] offsets = new int[256];
+    int[] sizes = new int[256];
+
+    for (int step = 0; step < 20_000; step++) {
+      int range = random.nextInt(offsets.length);
+      if (sizes[range] > 0) {
+        allocator.free(offsets[range], sizes[range]);
+        live.clear(offsets[range], offsets[range] + sizes[range]);
+        sizes[range] = 0;
+        continue;
+      }
+      int size = 1 + random.nextInt(64);
+      int offset = allocator.allocate(size);
+      if (offset == ArenaAllocator.NONE) {
+        allocator.grow(allocator.getCapacity() * 2);
+        offset = allocator.allocate(size);
+        assertNotEquals(ArenaAllocator.NONE, offset);
+      }
+      // the range never overlaps a live one, and is the lowest hole that fits
+      assertTrue(live.get(offset, offset + size).isEmpty());
+      assertFalse(hasHoleBefore(live, offset, size));
+      live.set(offset, offset + size);
+      offsets[range] = offset;
+      sizes[range] = size;
+
+      assertEquals(live.cardinality(), allocator.getUsed());
+      assertEquals(countHoles(live, allocator.getCapacity()), allocator.getFreeRangeCount());
+    }
+  }
+
+  private static boolean hasHoleBefore(BitSet live, int offset, int size) {
+    for (int from = live.nextClearBit(0); from < offset; ) {
+      int next = live.nextSetBit(from);
+      int to = next < 0 ? offset : Math.min(next, offset);
+      if (to - from >= size) return true;
+      from = live.nextClearBit(to);
+    }
+    return false;
+  }
+
+  private static int countHoles(BitSet live, int capacity) {
+    int holes = 0;
+    for (int from = live.nextClearBit(0); from < capacity; ) {
+      holes++;
+      int to = live.nextSetBit(from);
+      if (to < 0) break;
+      from = live.nextClearBit(to);
+    }
+    return holes;
+  }
+}
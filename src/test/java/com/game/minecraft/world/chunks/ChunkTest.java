@@ -0,0 +1,65 @@
+package com.game.minecraft.world.chunks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.game.minecraft.utils.Direction;
+import com.game.minecraft.world.Blocks;
+import org.junit.jupiter.api.Test;
+
+class ChunkTest {
+
+  private static Chunk meshedChunk(int chunkX) {
+    Chunk chunk = new Chunk(chunkX * Chunk.CHUNK_X, 0, 0);
+    chunk.takeDirtySections();
+    return chunk;
+  }
+
+  @Test
+  void blockEditDirtiesItsSectionAndTheBordersItTouches() {
+    Chunk chunk = meshedChunk(0);
+    Chunk left = meshedChunk(-1);
+    chunk.setNeighbor(Direction.LEFT, left);
+    chunk.takeDirtySections();
+    left.takeDirtySections();
+
+    chunk.setBlockAt(5, 40, 5, Blocks.STONE);
+    assertEquals(1 << 2, chunk.takeDirtySections());
+    assertEquals(0, left.takeDirtySections());
+
+    // bottom of section 2 borders section 3, x = 0 borders the left neighbor
+    chunk.setBlockAt(0, 47, 5, Blocks.STONE);
+    assertEquals(1 << 2 | 1 << 3, chunk.takeDirtySections());
+    assertEquals(1 << 2, left.takeDirtySections());
+  }
+
+  @Test
+  void settingTheSameNeighborDirtiesNothing() {
+    Chunk chunk = meshedChunk(0);
+    Chunk right = meshedChunk(1);
+    chunk.setBlockAt(3, 20, 3, Blocks.STONE);
+    chunk.setNeighbor(Direction.RIGHT, right);
+    chunk.takeDirtySections();
+
+    chunk.setNeighbor(Direction.RIGHT, right);
+    chunk.setNeighbor(Direction.LEFT, null);
+
+    assertEquals(0, chunk.takeDirtySections());
+  }
+
+  @Test
+  void newOrRemovedNeighborDirtiesOnlySectionsWithBlocks() {
+    Chunk chunk = meshedChunk(0);
+    Chunk right = meshedChunk(1);
+    chunk.setBlockAt(3, 20, 3, Blocks.STONE);
+    chunk.setBlockAt(3, 200, 3, Blocks.DIRT);
+    chunk.takeDirtySections();
+    int withBlocks = 1 << 1 | 1 << 12;
+
+    chunk.setNeighbor(Direction.RIGHT, right);
+    right.setNeighbor(Direction.LEFT, chunk);
+    assertEquals(withBlocks, chunk.takeDirtySections());
+
+    right.cleanup();
+    assertEquals(withBlocks, chunk.takeDirtySections());
+  }
+}
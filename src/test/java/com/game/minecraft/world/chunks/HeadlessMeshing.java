@@ -0,0 +1,38 @@
+package com.game.minecraft.world.chunks;
+
+import java.util.Arrays;
+
+/**
+ * Meshes chunks on the calling thread for tests that have no GL. A chunk gets the
+ * SectionConnectivity and OccluderSpans of a real build, but no vertices, since those only go to
+ * the ChunkArena's GL buffer.
+ */
+public final class HeadlessMeshing {
+
+  private HeadlessMeshing() {}
+
+  public static void mesh(Chunk chunk) {
+    int dirty = chunk.takeDirtySections();
+    ChunkMesher.MeshResult result = new ChunkMesher.MeshResult();
+    result.dirtySections = dirty;
+    ChunkNeighborhood blocks = chunk.snapshotNeighborhood();
+    try {
+      new ChunkMeshBuilder()
+          .build(
+              blocks,
+              dirty,
+              Chunk.isGreedyMeshing(),
+              result.opaqueVertices,
+              result.opaqueOffsets,
+              result.waterVertices,
+              result.waterOffsets,
+              result.connectivity,
+              result.occluderSpans);
+    } finally {
+      blocks.release();
+    }
+    Arrays.fill(result.opaqueOffsets, 0);
+    Arrays.fill(result.waterOffsets, 0);
+    chunk.uploadMesh(result);
+  }
+}